@@ -1,5 +1,7 @@
 package com.selenium.notion.pages;
 
+import com.selenium.notion.utils.ConfigReader;
+import com.selenium.notion.utils.DriverManager;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
@@ -22,6 +24,13 @@ public class AboutPage extends BasePage {
     @FindBy(xpath = "//nav | //header | //*[contains(@class, 'nav')] | //a[contains(@href, '/')]")
     private WebElement navigationArea;
 
+    /**
+     * Constructor for AboutPage using the WebDriver session bound to the current thread.
+     */
+    public AboutPage() {
+        this(DriverManager.getDriver());
+    }
+
     /**
      * Constructor for AboutPage.
      *
@@ -44,12 +53,8 @@ public class AboutPage extends BasePage {
      * Navigates to the About page.
      */
     public void navigateToAboutPage() {
-        navigateTo("https://www.notion.so/about");
-        try {
-            Thread.sleep(2000); // Wait for page load
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        navigateTo(ConfigReader.getAboutUrl());
+        spaWait.waitForPageToLoad();
     }
 
     /**
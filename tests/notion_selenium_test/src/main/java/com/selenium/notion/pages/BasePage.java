@@ -1,16 +1,31 @@
 package com.selenium.notion.pages;
 
+import com.selenium.notion.utils.CachingElementLocatorFactory;
+import com.selenium.notion.utils.CachingFieldDecorator;
+import com.selenium.notion.utils.DriverManager;
+import com.selenium.notion.utils.SPAWaitHelper;
+import com.selenium.notion.utils.WaitPolicy;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.support.PageFactory;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
 /**
  * Base Page Object class that all other page objects will extend.
  * Contains common functionality and shared elements.
+ * Page objects hold no static state, so each test thread can work with its own instances.
+ * @FindBy fields are located once and reused until they go stale (see {@link CachingElementLocatorFactory}).
+ * Waits draw from the "page" budget of the {@link WaitPolicy}.
  */
 public abstract class BasePage {
-    protected WebDriver driver;
-    protected WebDriverWait wait;
+    protected final WebDriver driver;
+    protected final WaitPolicy.BudgetedWait wait;
+    protected final SPAWaitHelper spaWait;
+
+    /**
+     * Constructor for BasePage using the WebDriver session bound to the current thread.
+     */
+    public BasePage() {
+        this(DriverManager.getDriver());
+    }
 
     /**
      * Constructor for BasePage.
@@ -19,8 +34,9 @@ public abstract class BasePage {
      */
     public BasePage(WebDriver driver) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, 15);
-        PageFactory.initElements(driver, this);
+        this.wait = WaitPolicy.forOperation(driver, "page");
+        this.spaWait = new SPAWaitHelper(driver, "page");
+        PageFactory.initElements(new CachingFieldDecorator(new CachingElementLocatorFactory(driver)), this);
     }
 
     /**
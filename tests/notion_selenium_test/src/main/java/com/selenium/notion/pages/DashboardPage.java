@@ -1,23 +1,60 @@
 package com.selenium.notion.pages;
 
+import com.selenium.notion.utils.ConfigReader;
+import com.selenium.notion.utils.DriverFactory;
+import com.selenium.notion.utils.DriverManager;
+import com.selenium.notion.utils.SPAWaitHelper;
+import com.selenium.notion.utils.WaitPolicy;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.util.concurrent.TimeUnit;
 
 /**
  * Page Object for the Notion Dashboard/Workspace Page.
  */
 public class DashboardPage extends BasePage {
 
+    private static final String USER_PROFILE_MENU_XPATH = "//button[contains(@aria-label, 'profile')] | //div[contains(@class, 'profile')] | //img[contains(@alt, 'profile')] | //*[contains(@class, 'user')] | //*[contains(@class, 'account')]";
+    private static final String LOGOUT_BUTTON_XPATH = "//button[contains(text(), 'Log out')] | //a[contains(text(), 'Log out')] | //button[contains(text(), 'Sign out')] | //a[contains(text(), 'Sign out')] | //*[contains(text(), 'Logout')]";
+
+    // Primary selector first, then alternatives, all probed together in the browser
+    private static final String[] PROFILE_MENU_XPATHS = {
+        USER_PROFILE_MENU_XPATH,
+        "//button[contains(@class, 'avatar')]",
+        "//div[contains(@class, 'user-avatar')]",
+        "//img[contains(@class, 'avatar')]",
+        "//*[contains(@data-testid, 'profile')]",
+        "//button[contains(@aria-haspopup, 'menu')]"
+    };
+    private static final String[] LOGOUT_BUTTON_XPATHS = {
+        LOGOUT_BUTTON_XPATH,
+        "//button[contains(text(), 'Log out')]",
+        "//a[contains(text(), 'Log out')]",
+        "//div[contains(text(), 'Log out')]",
+        "//*[contains(text(), 'Sign out')]",
+        "//*[contains(@data-testid, 'logout')]"
+    };
+    // Logout controls probed before the profile menu is opened: items of an open menu and
+    // dedicated buttons only, so page content that merely mentions logging out is never clicked
+    private static final String[] OPEN_MENU_LOGOUT_XPATHS = {
+        "//*[@role='menu']//*[contains(text(), 'Log out') or contains(text(), 'Sign out')]",
+        "//*[@role='menuitem'][contains(., 'Log out') or contains(., 'Sign out')]",
+        "//button[contains(text(), 'Log out')]",
+        "//button[contains(text(), 'Sign out')]",
+        "//*[contains(@data-testid, 'logout')]"
+    };
+    private static final long PROBE_INTERVAL_MILLIS = 250;
+
     // User profile/account menu
-    @FindBy(xpath = "//button[contains(@aria-label, 'profile')] | //div[contains(@class, 'profile')] | //img[contains(@alt, 'profile')] | //*[contains(@class, 'user')] | //*[contains(@class, 'account')]")
+    @FindBy(xpath = USER_PROFILE_MENU_XPATH)
     private WebElement userProfileMenu;
 
     // Sign out/logout option
-    @FindBy(xpath = "//button[contains(text(), 'Log out')] | //a[contains(text(), 'Log out')] | //button[contains(text(), 'Sign out')] | //a[contains(text(), 'Sign out')] | //*[contains(text(), 'Logout')]")
+    @FindBy(xpath = LOGOUT_BUTTON_XPATH)
     private WebElement logoutButton;
 
     // Main workspace area or dashboard indicator
@@ -28,6 +65,15 @@ public class DashboardPage extends BasePage {
     @FindBy(xpath = "//button[contains(@aria-label, 'settings')] | //button[contains(@aria-label, 'menu')] | //*[contains(@class, 'settings')] | //*[contains(@class, 'menu')]")
     private WebElement settingsButton;
 
+    private String logoutPath;
+
+    /**
+     * Constructor for DashboardPage using the WebDriver session bound to the current thread.
+     */
+    public DashboardPage() {
+        this(DriverManager.getDriver());
+    }
+
     /**
      * Constructor for DashboardPage.
      *
@@ -55,8 +101,7 @@ public class DashboardPage extends BasePage {
      */
     public boolean isUserProfileMenuVisible() {
         try {
-            WebDriverWait shortWait = new WebDriverWait(driver, 3);
-            return shortWait.until(ExpectedConditions.visibilityOf(userProfileMenu)).isDisplayed();
+            return WaitPolicy.forOperation(driver, "probe").until(ExpectedConditions.visibilityOf(userProfileMenu)).isDisplayed();
         } catch (Exception e) {
             return false;
         }
@@ -69,8 +114,7 @@ public class DashboardPage extends BasePage {
      */
     public boolean isWorkspaceAreaVisible() {
         try {
-            WebDriverWait shortWait = new WebDriverWait(driver, 3);
-            return shortWait.until(ExpectedConditions.visibilityOf(workspaceArea)).isDisplayed();
+            return WaitPolicy.forOperation(driver, "probe").until(ExpectedConditions.visibilityOf(workspaceArea)).isDisplayed();
         } catch (Exception e) {
             return false;
         }
@@ -79,108 +123,64 @@ public class DashboardPage extends BasePage {
     /**
      * Performs logout operation with multiple fallback strategies.
      *
+     * The profile menu selectors and the logout controls of an already open menu are evaluated
+     * together in one browser probe, which also checks that a match is clickable. The logout
+     * button is clicked directly if the menu is already open, otherwise the profile menu is
+     * opened first and all logout selectors are probed within it; if neither turns
+     * up, the logout URL is opened with a page-load timeout of what is left of the ceiling, or
+     * skipped once it is spent. The whole logout, including waiting for it to complete, is
+     * bounded by the "logout" wait budget, and the path taken is reported by
+     * {@link #getLogoutPath()}.
+     *
      * @return HomePage object after logout.
      */
     public HomePage logout() {
         System.out.println("Attempting to logout from Notion...");
-        
-        // Strategy 1: Try to find and click profile menu first
-        boolean profileClicked = false;
-        try {
-            WebDriverWait shortWait = new WebDriverWait(driver, 5);
-            WebElement profile = shortWait.until(ExpectedConditions.elementToBeClickable(userProfileMenu));
-            profile.click();
-            System.out.println("Successfully clicked user profile menu");
-            profileClicked = true;
-            Thread.sleep(1000);
-        } catch (Exception e) {
-            System.out.println("Profile menu not found: " + e.getMessage());
-        }
+        long start = System.currentTimeMillis();
+        long ceiling = start + WaitPolicy.allowanceMillis("logout");
+        long clickBudget = WaitPolicy.budgetMillis("click");
+        String[][] groups = {PROFILE_MENU_XPATHS, OPEN_MENU_LOGOUT_XPATHS};
+        String[] descriptions = {"profile menu", "logout button"};
 
-        // Strategy 2: Try alternative profile selectors
-        if (!profileClicked) {
-            try {
-                String[] profileSelectors = {
-                    "//button[contains(@class, 'avatar')]",
-                    "//div[contains(@class, 'user-avatar')]", 
-                    "//img[contains(@class, 'avatar')]",
-                    "//*[contains(@data-testid, 'profile')]",
-                    "//button[contains(@aria-haspopup, 'menu')]"
-                };
-                
-                for (String selector : profileSelectors) {
-                    try {
-                        WebElement altProfile = driver.findElement(By.xpath(selector));
-                        if (altProfile.isDisplayed()) {
-                            altProfile.click();
-                            System.out.println("Clicked alternative profile: " + selector);
-                            profileClicked = true;
-                            Thread.sleep(1000);
-                            break;
-                        }
-                    } catch (Exception ex) {
-                        // Continue to next selector
-                    }
-                }
-            } catch (Exception e) {
-                System.out.println("Alternative profile methods failed: " + e.getMessage());
+        // Strategy 1: click the logout button if the menu is open, otherwise the profile menu
+        String path = null;
+        SPAWaitHelper.LocatorMatch[] matches = probeUntilClickable(groups, descriptions, 0, 1,
+            Math.min(ceiling, System.currentTimeMillis() + clickBudget));
+        if (click(matches[1], "logout button")) {
+            path = "logout button " + matches[1].getXpath();
+        } else if (click(matches[0], "profile menu")) {
+            // Strategy 2: click the logout button in the opened menu
+            String[][] logoutOnly = {LOGOUT_BUTTON_XPATHS};
+            SPAWaitHelper.LocatorMatch[] logout = probeUntilClickable(logoutOnly, new String[] {"logout button"}, 0, 0,
+                Math.min(ceiling, System.currentTimeMillis() + clickBudget));
+            if (click(logout[0], "logout button")) {
+                path = "profile menu " + matches[0].getXpath() + " -> logout button " + logout[0].getXpath();
             }
         }
 
-        // Strategy 3: Try to find and click logout button
-        boolean logoutClicked = false;
-        if (profileClicked) {
-            try {
-                WebDriverWait shortWait = new WebDriverWait(driver, 5);
-                WebElement logout = shortWait.until(ExpectedConditions.elementToBeClickable(logoutButton));
-                logout.click();
-                System.out.println("Successfully clicked logout button");
-                logoutClicked = true;
-            } catch (Exception e) {
-                System.out.println("Primary logout button not found: " + e.getMessage());
-                
-                // Try alternative logout selectors
-                String[] logoutSelectors = {
-                    "//button[contains(text(), 'Log out')]",
-                    "//a[contains(text(), 'Log out')]",
-                    "//div[contains(text(), 'Log out')]",
-                    "//*[contains(text(), 'Sign out')]",
-                    "//*[contains(@data-testid, 'logout')]"
-                };
-                
-                for (String selector : logoutSelectors) {
-                    try {
-                        WebElement logoutAlt = driver.findElement(By.xpath(selector));
-                        if (logoutAlt.isDisplayed()) {
-                            logoutAlt.click();
-                            System.out.println("Clicked alternative logout: " + selector);
-                            logoutClicked = true;
-                            break;
-                        }
-                    } catch (Exception ex) {
-                        // Continue to next selector
-                    }
-                }
-            }
-        }
-
-        // Strategy 4: If all else fails, try direct navigation to logout URL
-        if (!logoutClicked) {
+        // Strategy 3: If all else fails, try direct navigation to logout URL, loading it
+        // only for what is left of the ceiling
+        long remaining = ceiling - System.currentTimeMillis();
+        if (path == null && remaining <= 0) {
+            System.out.println("Logout ceiling reached, skipping URL navigation");
+        } else if (path == null) {
             System.out.println("Direct logout methods failed, trying URL navigation...");
+            driver.manage().timeouts().pageLoadTimeout(remaining, TimeUnit.MILLISECONDS);
             try {
-                driver.get("https://www.notion.so/logout");
+                driver.get(ConfigReader.getLogoutUrl());
                 System.out.println("Navigated directly to logout URL");
-                logoutClicked = true;
+                path = "direct navigation to " + ConfigReader.getLogoutUrl();
             } catch (Exception e) {
                 System.out.println("Direct logout URL navigation failed: " + e.getMessage());
+            } finally {
+                driver.manage().timeouts().pageLoadTimeout(DriverFactory.PAGE_LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
             }
         }
 
-        // Wait for logout to complete
-        if (logoutClicked) {
+        // Wait for logout to complete within what is left of the ceiling
+        if (path != null) {
             try {
-                WebDriverWait shortWait = new WebDriverWait(driver, 10);
-                shortWait.until(ExpectedConditions.or(
+                WaitPolicy.forOperation(driver, "logout", Math.max(0, ceiling - System.currentTimeMillis())).until(ExpectedConditions.or(
                     ExpectedConditions.titleContains("Notion"),
                     ExpectedConditions.titleContains("Sign in"),
                     ExpectedConditions.titleContains("Login")
@@ -193,7 +193,61 @@ public class DashboardPage extends BasePage {
             System.out.println("WARNING: Could not perform logout - user may not be logged in or UI has changed");
         }
 
+        logoutPath = path == null ? "none" : path;
+        System.out.println("Logout path: " + logoutPath + " (" + (System.currentTimeMillis() - start) + " ms)");
+
         // Return to HomePage regardless of logout success
         return new HomePage(driver);
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the path the last {@link #logout()} took.
+     *
+     * @return The elements clicked or the URL opened, "none" if nothing worked, or null before logout.
+     */
+    public String getLogoutPath() {
+        return logoutPath;
+    }
+
+    /**
+     * Probes the locator groups until one of the two wanted groups has a clickable match or
+     * the deadline passes, and returns the last probe's matches.
+     */
+    private SPAWaitHelper.LocatorMatch[] probeUntilClickable(String[][] groups, String[] descriptions,
+                                                              int first, int second, long deadline) {
+        while (true) {
+            SPAWaitHelper.LocatorMatch[] matches = spaWait.probeLocatorGroups(groups, descriptions);
+            if (isClickable(matches[first]) || isClickable(matches[second])) {
+                return matches;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return matches;
+            }
+            try {
+                Thread.sleep(Math.min(PROBE_INTERVAL_MILLIS, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return matches;
+            }
+        }
+    }
+
+    private boolean isClickable(SPAWaitHelper.LocatorMatch match) {
+        return match != null && match.isClickable();
+    }
+
+    private boolean click(SPAWaitHelper.LocatorMatch match, String description) {
+        if (!isClickable(match)) {
+            return false;
+        }
+        try {
+            match.getElement().click();
+            System.out.println("Clicked " + description + ": " + match.getXpath());
+            return true;
+        } catch (Exception e) {
+            System.out.println("Could not click " + description + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
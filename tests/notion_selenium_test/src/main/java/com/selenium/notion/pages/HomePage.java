@@ -1,5 +1,7 @@
 package com.selenium.notion.pages;
 
+import com.selenium.notion.utils.ConfigReader;
+import com.selenium.notion.utils.DriverManager;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
@@ -26,6 +28,13 @@ public class HomePage extends BasePage {
     @FindBy(xpath = "//nav | //header | //*[contains(@class, 'nav')] | //*[contains(@class, 'header')]")
     private WebElement navigationBar;
 
+    /**
+     * Constructor for HomePage using the WebDriver session bound to the current thread.
+     */
+    public HomePage() {
+        this(DriverManager.getDriver());
+    }
+
     /**
      * Constructor for HomePage.
      *
@@ -39,7 +48,7 @@ public class HomePage extends BasePage {
      * Navigates to the Notion homepage.
      */
     public void navigateToHomePage() {
-        navigateTo("https://www.notion.so");
+        navigateTo(ConfigReader.getBaseUrl());
         try {
             wait.until(ExpectedConditions.or(
                 ExpectedConditions.visibilityOf(loginButton),
@@ -62,7 +71,7 @@ public class HomePage extends BasePage {
             return new LoginPage(driver);
         } catch (Exception e) {
             System.out.println("Login button not found, trying direct navigation...");
-            navigateTo("https://www.notion.so/login");
+            navigateTo(ConfigReader.getLoginUrl());
             return new LoginPage(driver);
         }
     }
@@ -1,5 +1,8 @@
 package com.selenium.notion.pages;
 
+import com.selenium.notion.utils.ConfigReader;
+import com.selenium.notion.utils.DriverManager;
+import com.selenium.notion.utils.WaitPolicy;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
@@ -27,6 +30,32 @@ public class LoginPage extends BasePage {
     @FindBy(xpath = "//*[contains(text(), 'Invalid')] | //*[contains(text(), 'incorrect')] | //*[contains(text(), 'error')] | //*[contains(@class, 'error')] | //*[contains(@class, 'invalid')]")
     private WebElement errorMessage;
 
+    // Email field strategies, tried in the order learned for this page
+    private static final String[] EMAIL_FIELD_XPATHS = {
+        "//input[@type='email']",
+        "//input[contains(@placeholder, 'email')]",
+        "//input[contains(@placeholder, 'Email')]",
+        "//input[@name='email']",
+        "//input[@id='email']",
+        "//input"
+    };
+
+    // Verification code field strategies, for the step after the email is submitted
+    private static final String[] VERIFICATION_CODE_FIELD_XPATHS = {
+        "//input[contains(@placeholder, 'code')]",
+        "//input[contains(@placeholder, 'verification')]",
+        "//input[@autocomplete='one-time-code']",
+        "//input[@name='code']",
+        "//input[@type='text']"
+    };
+
+    /**
+     * Constructor for LoginPage using the WebDriver session bound to the current thread.
+     */
+    public LoginPage() {
+        this(DriverManager.getDriver());
+    }
+
     /**
      * Constructor for LoginPage.
      *
@@ -49,12 +78,8 @@ public class LoginPage extends BasePage {
      * Navigates directly to the login page.
      */
     public void navigateToLoginPage() {
-        navigateTo("https://www.notion.so/login");
-        try {
-            Thread.sleep(2000); // Wait for page load
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        navigateTo(ConfigReader.getLoginUrl());
+        spaWait.waitForPageToLoad();
     }
 
     /**
@@ -63,20 +88,16 @@ public class LoginPage extends BasePage {
      * @param email The email to enter.
      */
     public void enterEmail(String email) {
+        WebElement field = spaWait.waitForElementWithMultipleStrategies(EMAIL_FIELD_XPATHS, "login email field");
+        if (field == null) {
+            System.out.println("Could not locate email field");
+            return;
+        }
         try {
-            wait.until(ExpectedConditions.visibilityOf(emailField));
-            emailField.clear();
-            emailField.sendKeys(email);
+            field.clear();
+            field.sendKeys(email);
         } catch (Exception e) {
-            System.out.println("Email field not found with primary selector, trying alternatives...");
-            // Try alternative selectors
-            try {
-                WebElement altEmailField = driver.findElement(By.xpath("//input"));
-                altEmailField.clear();
-                altEmailField.sendKeys(email);
-            } catch (Exception ex) {
-                System.out.println("Could not locate email field: " + ex.getMessage());
-            }
+            System.out.println("Could not enter email: " + e.getMessage());
         }
     }
 
@@ -105,7 +126,8 @@ public class LoginPage extends BasePage {
         } catch (Exception e) {
             System.out.println("Submit button not found with primary selector, trying alternatives...");
             try {
-                WebElement altSubmit = driver.findElement(By.xpath("//button | //input[@type='submit']"));
+                WebElement altSubmit = WaitPolicy.forOperation(driver, "probe").until(
+                    ExpectedConditions.elementToBeClickable(By.xpath("//button | //input[@type='submit']")));
                 altSubmit.click();
             } catch (Exception ex) {
                 System.out.println("Could not locate submit button: " + ex.getMessage());
@@ -113,6 +135,24 @@ public class LoginPage extends BasePage {
         }
     }
 
+    /**
+     * Enters the emailed verification code and submits it.
+     *
+     * @param code The verification code.
+     * @return true if the code was entered and submitted, false if no code field was found.
+     */
+    public boolean submitVerificationCode(String code) {
+        WebElement field = spaWait.waitForElementWithMultipleStrategies(VERIFICATION_CODE_FIELD_XPATHS, "verification code field");
+        if (field == null) {
+            System.out.println("Could not locate verification code field");
+            return false;
+        }
+        field.clear();
+        field.sendKeys(code);
+        clickSubmitButton();
+        return true;
+    }
+
     /**
      * Performs a complete login with email and password.
      *
@@ -122,19 +162,9 @@ public class LoginPage extends BasePage {
      */
     public DashboardPage login(String email, String password) {
         enterEmail(email);
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
         enterPassword(password);
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
         clickSubmitButton();
-        
+
         return new DashboardPage(driver);
     }
 
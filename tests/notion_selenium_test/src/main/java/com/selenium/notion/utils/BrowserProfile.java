@@ -0,0 +1,70 @@
+package com.selenium.notion.utils;
+
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Browser profiles that trade rendering fidelity for per-test latency.
+ * FIDELITY starts a maximized, fully rendering browser that waits for the complete page load.
+ * LEAN starts a headless browser with a small fixed viewport, an eager (or none) page-load
+ * strategy, no images or web fonts and no background networking.
+ */
+public enum BrowserProfile {
+    FIDELITY,
+    LEAN;
+
+    /**
+     * Gets the profile selected by the browser.profile setting.
+     *
+     * @return The configured browser profile.
+     */
+    public static BrowserProfile fromConfig() {
+        return valueOf(ConfigReader.getProperty("browser.profile", "fidelity").toUpperCase());
+    }
+
+    /**
+     * Adds the profile-specific capabilities to the Chrome options.
+     *
+     * @param options The options to configure.
+     */
+    public void apply(ChromeOptions options) {
+        if (this == FIDELITY) {
+            options.setPageLoadStrategy(PageLoadStrategy.NORMAL);
+            return;
+        }
+
+        options.setPageLoadStrategy(getLeanPageLoadStrategy());
+        options.setHeadless(true);
+        options.addArguments("--window-size=" + ConfigReader.getProperty("browser.lean.window.size", "1280,800"));
+        options.addArguments("--disable-background-networking");
+        options.addArguments("--disable-remote-fonts");
+
+        // 2 = block
+        Map<String, Object> prefs = new HashMap<>();
+        prefs.put("profile.managed_default_content_settings.images", 2);
+        options.setExperimentalOption("prefs", prefs);
+    }
+
+    /**
+     * Checks whether the browser window should be maximized after the session starts.
+     *
+     * @return true if the window should be maximized, false otherwise.
+     */
+    public boolean maximizesWindow() {
+        return this == FIDELITY;
+    }
+
+    private static PageLoadStrategy getLeanPageLoadStrategy() {
+        String strategy = ConfigReader.getProperty("browser.lean.page.load.strategy", "eager");
+        if ("none".equalsIgnoreCase(strategy)) {
+            return PageLoadStrategy.NONE;
+        }
+        if ("eager".equalsIgnoreCase(strategy)) {
+            return PageLoadStrategy.EAGER;
+        }
+        throw new IllegalArgumentException("Unsupported lean page load strategy '" + strategy + "', expected eager or none");
+    }
+}
@@ -0,0 +1,48 @@
+package com.selenium.notion.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads JavaScript snippets executed in the browser from src/main/resources/scripts.
+ * Scripts too long to read comfortably as Java string literals live there and are cached
+ * after the first load.
+ */
+public class BrowserScripts {
+
+    private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private BrowserScripts() {
+    }
+
+    /**
+     * Gets the source of a script by file name.
+     *
+     * @param name The script file name, e.g. "wait-for-dynamic-content.js".
+     * @return The script source.
+     */
+    public static String get(String name) {
+        return CACHE.computeIfAbsent(name, BrowserScripts::load);
+    }
+
+    private static String load(String name) {
+        try (InputStream in = BrowserScripts.class.getResourceAsStream("/scripts/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Browser script not found: " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not load browser script " + name, e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.selenium.notion.utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.pagefactory.Annotations;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+import org.openqa.selenium.support.pagefactory.ElementLocatorFactory;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PageFactory locator factory that remembers the element each @FindBy field resolved to,
+ * so repeated isDisplayed()/getText()/click() calls on the field do not search the DOM again.
+ *
+ * A cached element that has gone stale (the page re-rendered or navigated) is dropped and
+ * located again by {@link CachingFieldDecorator}. Elements that are not found are never
+ * cached, and List fields are always located afresh.
+ *
+ * Lookup counts, cache hits, stale re-resolutions and DOM search time are recorded per
+ * field for the whole suite; see {@link #getStatistics()}. element.cache.enabled=false turns
+ * the cache off while keeping the statistics.
+ */
+public class CachingElementLocatorFactory implements ElementLocatorFactory {
+
+    private static final Map<String, FieldStatistics> STATISTICS = new ConcurrentHashMap<>();
+
+    private final SearchContext searchContext;
+    private final boolean cacheEnabled;
+
+    /**
+     * Constructor for CachingElementLocatorFactory.
+     *
+     * @param searchContext The driver or element the fields are located in.
+     */
+    public CachingElementLocatorFactory(SearchContext searchContext) {
+        this(searchContext, Boolean.parseBoolean(ConfigReader.getProperty("element.cache.enabled", "true")));
+    }
+
+    /**
+     * Constructor for CachingElementLocatorFactory.
+     *
+     * @param searchContext The driver or element the fields are located in.
+     * @param cacheEnabled Whether resolved elements are reused between calls.
+     */
+    public CachingElementLocatorFactory(SearchContext searchContext, boolean cacheEnabled) {
+        this.searchContext = searchContext;
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    @Override
+    public ElementLocator createLocator(Field field) {
+        String name = field.getDeclaringClass().getSimpleName() + "." + field.getName();
+        FieldStatistics statistics = STATISTICS.computeIfAbsent(name, FieldStatistics::new);
+        return new CachingElementLocator(searchContext, new Annotations(field).buildBy(), cacheEnabled, statistics);
+    }
+
+    /**
+     * Gets the lookup statistics of every field located so far, slowest first.
+     *
+     * @return The per-field statistics, one line per field.
+     */
+    public static String getStatistics() {
+        List<FieldStatistics> fields = new ArrayList<>(STATISTICS.values());
+        fields.sort((a, b) -> Long.compare(b.lookupNanos.get(), a.lookupNanos.get()));
+        StringBuilder report = new StringBuilder("Page element lookup statistics:");
+        for (FieldStatistics field : fields) {
+            report.append("\n  ").append(field);
+        }
+        return report.toString();
+    }
+
+    /**
+     * Locator for one field that keeps the element it found until it is invalidated.
+     */
+    public static class CachingElementLocator implements ElementLocator {
+        private final SearchContext searchContext;
+        private final By by;
+        private final boolean cacheEnabled;
+        private final FieldStatistics statistics;
+        private volatile WebElement cachedElement;
+
+        CachingElementLocator(SearchContext searchContext, By by, boolean cacheEnabled, FieldStatistics statistics) {
+            this.searchContext = searchContext;
+            this.by = by;
+            this.cacheEnabled = cacheEnabled;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public WebElement findElement() {
+            WebElement element = cachedElement;
+            if (element != null) {
+                statistics.cacheHits.incrementAndGet();
+                return element;
+            }
+
+            long start = System.nanoTime();
+            try {
+                element = searchContext.findElement(by);
+            } catch (NoSuchElementException e) {
+                statistics.misses.incrementAndGet();
+                throw e;
+            } finally {
+                statistics.recordLookup(System.nanoTime() - start);
+            }
+            if (cacheEnabled) {
+                cachedElement = element;
+            }
+            return element;
+        }
+
+        @Override
+        public List<WebElement> findElements() {
+            long start = System.nanoTime();
+            try {
+                return searchContext.findElements(by);
+            } finally {
+                statistics.recordLookup(System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Drops the cached element after it went stale, so the next call locates it again.
+         */
+        public void invalidate() {
+            if (cachedElement != null) {
+                cachedElement = null;
+                statistics.staleResolutions.incrementAndGet();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + " '" + by + "'";
+        }
+    }
+
+    private static class FieldStatistics {
+        private final String name;
+        private final AtomicLong lookups = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong cacheHits = new AtomicLong();
+        private final AtomicLong staleResolutions = new AtomicLong();
+        private final AtomicLong lookupNanos = new AtomicLong();
+
+        FieldStatistics(String name) {
+            this.name = name;
+        }
+
+        void recordLookup(long nanos) {
+            lookups.incrementAndGet();
+            lookupNanos.addAndGet(nanos);
+        }
+
+        @Override
+        public String toString() {
+            long count = lookups.get();
+            long totalMillis = TimeUnit.NANOSECONDS.toMillis(lookupNanos.get());
+            return name + ": lookups=" + count + ", misses=" + misses.get() + ", cacheHits=" + cacheHits.get() +
+                ", staleResolutions=" + staleResolutions.get() + ", lookupMillis=" + totalMillis +
+                ", avgLookupMillis=" + (count == 0 ? 0 : totalMillis / count);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.selenium.notion.utils;
+
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+import org.openqa.selenium.interactions.Locatable;
+import org.openqa.selenium.support.pagefactory.DefaultFieldDecorator;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * PageFactory field decorator for {@link CachingElementLocatorFactory}. Each WebElement field
+ * becomes a proxy that calls through to the cached element and, when the call fails with a
+ * StaleElementReferenceException, drops the cached element, locates it again and repeats the
+ * call once.
+ */
+public class CachingFieldDecorator extends DefaultFieldDecorator {
+
+    /**
+     * Constructor for CachingFieldDecorator.
+     *
+     * @param factory The locator factory for the page's fields.
+     */
+    public CachingFieldDecorator(CachingElementLocatorFactory factory) {
+        super(factory);
+    }
+
+    @Override
+    protected WebElement proxyForLocator(ClassLoader loader, ElementLocator locator) {
+        return (WebElement) Proxy.newProxyInstance(loader,
+            new Class[] {WebElement.class, WrapsElement.class, Locatable.class},
+            new StaleRetryingHandler(locator));
+    }
+
+    private static class StaleRetryingHandler implements InvocationHandler {
+        private final ElementLocator locator;
+
+        StaleRetryingHandler(ElementLocator locator) {
+            this.locator = locator;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            WebElement element;
+            try {
+                element = locator.findElement();
+            } catch (NoSuchElementException e) {
+                if ("toString".equals(method.getName())) {
+                    return "Proxy element for: " + locator;
+                }
+                throw e;
+            }
+
+            if ("getWrappedElement".equals(method.getName())) {
+                return element;
+            }
+
+            try {
+                return method.invoke(element, args);
+            } catch (InvocationTargetException e) {
+                if (!(e.getCause() instanceof StaleElementReferenceException)
+                        || !(locator instanceof CachingElementLocatorFactory.CachingElementLocator)) {
+                    throw e.getCause();
+                }
+            }
+
+            ((CachingElementLocatorFactory.CachingElementLocator) locator).invalidate();
+            try {
+                return method.invoke(locator.findElement(), args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -2,13 +2,18 @@ package com.selenium.notion.utils;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utility class for reading configuration properties from config.properties file.
  */
 public class ConfigReader {
     private static Properties properties;
+    private static final Map<String, String> overrides = new ConcurrentHashMap<>();
     private static final String CONFIG_FILE_PATH = "src/main/resources/config.properties";
 
     static {
@@ -31,13 +36,154 @@ public class ConfigReader {
     }
 
     /**
-     * Gets a property value by key.
+     * Gets a property value by key. Values set at runtime with {@link #setProperty(String, String)}
+     * take precedence, followed by JVM system properties and then the config file.
      *
      * @param key The property key.
      * @return The property value.
      */
     public static String getProperty(String key) {
-        return properties.getProperty(key);
+        String override = overrides.get(key);
+        return override != null ? override : System.getProperty(key, properties.getProperty(key));
+    }
+
+    /**
+     * Overrides a property at runtime, e.g. to point the base URL at a local server
+     * started by the test harness.
+     *
+     * @param key The property key.
+     * @param value The new value, or null to remove the override.
+     */
+    public static void setProperty(String key, String value) {
+        if (value == null) {
+            overrides.remove(key);
+        } else {
+            overrides.put(key, value);
+        }
+    }
+
+    /**
+     * Gets a property value by key, falling back to a default when it is not set.
+     *
+     * @param key The property key.
+     * @param defaultValue The value to return if the property is missing.
+     * @return The property value or the default.
+     */
+    public static String getProperty(String key, String defaultValue) {
+        String value = getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Gets an integer property value, falling back to a default when it is not set.
+     *
+     * @param key The property key.
+     * @param defaultValue The value to return if the property is missing.
+     * @return The property value or the default.
+     */
+    public static int getIntProperty(String key, int defaultValue) {
+        return Integer.parseInt(getProperty(key, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * Gets the Selenium grid hub URLs to probe, in configuration order.
+     *
+     * @return The list of hub URLs.
+     */
+    public static List<String> getGridHubUrls() {
+        List<String> urls = getListProperty("grid.hub.urls");
+        if (urls.isEmpty()) {
+            urls.add("http://localhost:4444/wd/hub");
+        }
+        return urls;
+    }
+
+    /**
+     * Gets how long a grid health probe may take before the hub is considered unhealthy.
+     *
+     * @return The probe timeout in milliseconds.
+     */
+    public static int getGridProbeTimeoutMillis() {
+        return getIntProperty("grid.probe.timeout.millis", 2000);
+    }
+
+    /**
+     * Gets how long the resolved grid endpoint is trusted before it is re-validated.
+     *
+     * @return The endpoint cache TTL in seconds.
+     */
+    public static int getGridEndpointTtlSeconds() {
+        return getIntProperty("grid.endpoint.ttl.seconds", 30);
+    }
+
+    /**
+     * Gets the HTTP cache mode: off, record or replay.
+     *
+     * @return The HTTP cache mode.
+     */
+    public static String getHttpCacheMode() {
+        return getProperty("http.cache.mode", "off");
+    }
+
+    /**
+     * Gets a comma separated property as a list of trimmed, non-empty values.
+     *
+     * @param key The property key.
+     * @return The list of values, empty if the property is not set.
+     */
+    public static List<String> getListProperty(String key) {
+        List<String> values = new ArrayList<>();
+        for (String value : getProperty(key, "").split(",")) {
+            if (!value.trim().isEmpty()) {
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Gets the maximum number of WebDriver sessions kept by the session pool.
+     *
+     * @return The pool size.
+     */
+    public static int getPoolSize() {
+        return getIntProperty("pool.size", 1);
+    }
+
+    /**
+     * Gets how long an unused pooled session may stay idle before it is closed.
+     *
+     * @return The idle eviction timeout in seconds.
+     */
+    public static int getPoolIdleEvictionSeconds() {
+        return getIntProperty("pool.idle.eviction.seconds", 300);
+    }
+
+    /**
+     * Gets how many tests may use a pooled session before it is recycled.
+     *
+     * @return The maximum number of uses per session.
+     */
+    public static int getPoolMaxUsesPerSession() {
+        return getIntProperty("pool.max.uses.per.session", 20);
+    }
+
+    /**
+     * Gets how many sessions are created in the background ahead of demand.
+     *
+     * @return The pre-warming look-ahead depth, 0 when disabled.
+     */
+    public static int getPoolPrewarmDepth() {
+        return getIntProperty("pool.prewarm.depth", 0);
+    }
+
+    /**
+     * Gets how long a test waits for a pre-warmed session that is still starting.
+     *
+     * @return The pre-warmed session take timeout in seconds.
+     */
+    public static int getPoolPrewarmTimeoutSeconds() {
+        return getIntProperty("pool.prewarm.timeout.seconds", 60);
     }
 
     /**
@@ -55,7 +201,7 @@ public class ConfigReader {
      * @return The login URL.
      */
     public static String getLoginUrl() {
-        return getProperty("login.url");
+        return getBaseUrl() + getProperty("login.path", "/login");
     }
 
     /**
@@ -64,7 +210,16 @@ public class ConfigReader {
      * @return The about URL.
      */
     public static String getAboutUrl() {
-        return getProperty("about.url");
+        return getBaseUrl() + getProperty("about.path", "/about");
+    }
+
+    /**
+     * Gets the logout URL.
+     *
+     * @return The logout URL.
+     */
+    public static String getLogoutUrl() {
+        return getBaseUrl() + getProperty("logout.path", "/logout");
     }
 
     /**
@@ -103,24 +258,6 @@ public class ConfigReader {
         return getProperty("real.test.password");
     }
 
-    /**
-     * Gets the implicit wait timeout in seconds.
-     *
-     * @return The implicit wait timeout.
-     */
-    public static int getImplicitWaitSeconds() {
-        return Integer.parseInt(getProperty("implicit.wait.seconds"));
-    }
-
-    /**
-     * Gets the explicit wait timeout in seconds.
-     *
-     * @return The explicit wait timeout.
-     */
-    public static int getExplicitWaitSeconds() {
-        return Integer.parseInt(getProperty("explicit.wait.seconds"));
-    }
-
     /**
      * Gets the expected page title for homepage.
      *
@@ -0,0 +1,102 @@
+package com.selenium.notion.utils;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.logging.LoggingPreferences;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Factory for creating configured RemoteWebDriver sessions on the Selenium grid.
+ */
+public class DriverFactory {
+
+    /**
+     * Script timeout every session starts with.
+     */
+    public static final int SCRIPT_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Page-load timeout every session starts with.
+     */
+    public static final int PAGE_LOAD_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Builds the Chrome options used for every session with the configured browser profile.
+     *
+     * @return The configured ChromeOptions.
+     */
+    public static ChromeOptions createChromeOptions() {
+        return createChromeOptions(BrowserProfile.fromConfig());
+    }
+
+    /**
+     * Builds the Chrome options used for every session.
+     *
+     * @param profile The browser profile to apply.
+     * @return The configured ChromeOptions.
+     */
+    public static ChromeOptions createChromeOptions(BrowserProfile profile) {
+        ChromeOptions options = new ChromeOptions();
+
+        // Enhanced options for modern SPAs like Notion
+        options.addArguments("--user-agent=Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36");
+        options.addArguments("--disable-blink-features=AutomationControlled");
+        options.addArguments("--disable-web-security");
+        options.addArguments("--disable-features=VizDisplayCompositor");
+        options.addArguments("--no-sandbox");
+        options.addArguments("--disable-dev-shm-usage");
+        options.addArguments("--disable-gpu");
+
+        // Page-load strategy, headless mode and resource trimming
+        profile.apply(options);
+
+        // Remove automation indicators
+        options.setExperimentalOption("excludeSwitches", new String[]{"enable-automation"});
+        options.setExperimentalOption("useAutomationExtension", false);
+
+        // Keep the browser console so failure diagnostics can include it
+        LoggingPreferences logging = new LoggingPreferences();
+        logging.enable(LogType.BROWSER, Level.ALL);
+        options.setCapability("goog:loggingPrefs", logging);
+
+        return options;
+    }
+
+    /**
+     * Creates a new RemoteWebDriver session with the standard timeouts and window setup.
+     *
+     * @return The new WebDriver session.
+     */
+    public static WebDriver createDriver() {
+        BrowserProfile profile = BrowserProfile.fromConfig();
+        ChromeOptions options = createChromeOptions(profile);
+
+        WebDriver driver;
+        try {
+            driver = new RemoteWebDriver(GridEndpointResolver.resolve(), options);
+        } catch (Exception e) {
+            // The cached hub may have gone away since it was last validated
+            System.out.println("Session creation failed, re-resolving grid endpoint: " + e.getMessage());
+            GridEndpointResolver.invalidate();
+            try {
+                driver = new RemoteWebDriver(GridEndpointResolver.resolve(), options);
+            } catch (Exception ex) {
+                throw new RuntimeException("Could not create a WebDriver session on the grid", ex);
+            }
+        }
+
+        // Element waits are explicit and budgeted by WaitPolicy; page loads may take longer for the SPA
+        WaitPolicy.pinImplicitWait(driver);
+        driver.manage().timeouts().pageLoadTimeout(PAGE_LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        driver.manage().timeouts().setScriptTimeout(SCRIPT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        if (profile.maximizesWindow()) {
+            driver.manage().window().maximize();
+        }
+
+        return driver;
+    }
+}
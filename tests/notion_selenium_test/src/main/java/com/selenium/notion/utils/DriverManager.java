@@ -0,0 +1,59 @@
+package com.selenium.notion.utils;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Per-thread holder for the WebDriver session of the currently running test.
+ * Each TestNG worker thread sees only its own session, so tests and page objects
+ * can run in parallel without sharing a driver.
+ */
+public class DriverManager {
+
+    private static final ThreadLocal<WebDriver> DRIVER = new ThreadLocal<>();
+
+    private DriverManager() {
+    }
+
+    /**
+     * Binds a WebDriver session to the current thread.
+     *
+     * @param driver The WebDriver instance.
+     */
+    public static void setDriver(WebDriver driver) {
+        DRIVER.set(driver);
+    }
+
+    /**
+     * Gets the WebDriver session bound to the current thread.
+     *
+     * @return The WebDriver instance.
+     * @throws IllegalStateException if no session is bound to the current thread.
+     */
+    public static WebDriver getDriver() {
+        WebDriver driver = DRIVER.get();
+        if (driver == null) {
+            throw new IllegalStateException("No WebDriver session bound to thread " + Thread.currentThread().getName());
+        }
+        return driver;
+    }
+
+    /**
+     * Checks whether a WebDriver session is bound to the current thread.
+     *
+     * @return true if a session is bound, false otherwise.
+     */
+    public static boolean hasDriver() {
+        return DRIVER.get() != null;
+    }
+
+    /**
+     * Unbinds the WebDriver session from the current thread.
+     *
+     * @return The previously bound WebDriver instance, or null if none was bound.
+     */
+    public static WebDriver removeDriver() {
+        WebDriver driver = DRIVER.get();
+        DRIVER.remove();
+        return driver;
+    }
+}
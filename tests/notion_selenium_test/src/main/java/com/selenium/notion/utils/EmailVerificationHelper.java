@@ -1,136 +1,83 @@
 package com.selenium.notion.utils;
 
-import java.util.Properties;
-import javax.mail.*;
-import javax.mail.search.FlagTerm;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import javax.mail.Message;
+import java.util.List;
 
 /**
  * Helper class for automated email verification code retrieval.
  * Supports Gmail IMAP for reading verification emails.
+ *
+ * Each call opens its own {@link ImapInbox} connection and waits in IMAP IDLE (or polls) until
+ * a code arrives. The server is set with email.imap.host, email.imap.port and email.imap.ssl,
+ * so the helper can also be pointed at a local embedded IMAP server. Each helper remembers the
+ * last message it has scanned, so later calls only look at mail that arrived since, and a code
+ * that was already returned is not seen again. When several codes arrive together, the newest
+ * one is returned.
+ *
+ * When several logins wait for codes at the same time, use {@link VerificationCodeDispatcher},
+ * which serves all of them from one connection.
  */
 public class EmailVerificationHelper {
-    
-    private final String email;
-    private final String password;
-    private final String imapHost;
-    private final int imapPort;
-    
+
+    private final ImapInbox inbox;
+    private final VerificationCodeExtractor codeExtractor = VerificationCodeExtractor.fromConfig();
+
     public EmailVerificationHelper(String email, String password) {
-        this.email = email;
-        this.password = password;
-        this.imapHost = "imap.gmail.com"; // For Gmail
-        this.imapPort = 993;
+        this.inbox = ImapInbox.fromConfig(email, password);
     }
-    
+
+    /**
+     * Constructor for EmailVerificationHelper with an explicit IMAP server.
+     *
+     * @param email The account to read verification emails from.
+     * @param password The account password (an app password for Gmail).
+     * @param imapHost The IMAP server host.
+     * @param imapPort The IMAP server port.
+     * @param ssl Whether to connect with imaps instead of plain imap.
+     */
+    public EmailVerificationHelper(String email, String password, String imapHost, int imapPort, boolean ssl) {
+        this.inbox = ImapInbox.fromConfig(email, password, imapHost, imapPort, ssl);
+    }
+
     /**
      * Retrieves the latest verification code from Notion emails.
-     * 
+     *
      * @param timeoutSeconds Maximum time to wait for email
      * @return The verification code, or null if not found
      */
-    public String getNotionVerificationCode(int timeoutSeconds) {
+    public synchronized String getNotionVerificationCode(int timeoutSeconds) {
         try {
             System.out.println("Connecting to email to retrieve verification code...");
-            
-            Properties props = new Properties();
-            props.put("mail.store.protocol", "imaps");
-            props.put("mail.imaps.host", imapHost);
-            props.put("mail.imaps.port", imapPort);
-            props.put("mail.imaps.ssl.enable", "true");
-            
-            Session session = Session.getDefaultInstance(props);
-            Store store = session.getStore("imaps");
-            store.connect(imapHost, email, password);
-            
-            Folder inbox = store.getFolder("INBOX");
-            inbox.open(Folder.READ_ONLY);
-            
+            inbox.open();
+
             // Wait for new email with timeout
-            long startTime = System.currentTimeMillis();
-            while ((System.currentTimeMillis() - startTime) < (timeoutSeconds * 1000)) {
-                
-                // Get unread messages
-                Message[] messages = inbox.search(new FlagTerm(new Flags(Flags.Flag.SEEN), false));
-                
-                for (Message message : messages) {
-                    if (message.getSubject().toLowerCase().contains("notion") && 
-                        message.getSubject().toLowerCase().contains("code")) {
-                        
-                        String content = getTextContent(message);
-                        String code = extractVerificationCode(content);
-                        
-                        if (code != null) {
-                            System.out.println("Found verification code: " + code);
-                            inbox.close(false);
-                            store.close();
-                            return code;
-                        }
+            long deadline = System.currentTimeMillis() + timeoutSeconds * 1000L;
+            while (true) {
+                // Newest first: a batch can hold an older code that a resend has replaced
+                List<Message> messages = inbox.fetchNewVerificationEmails();
+                for (int i = messages.size() - 1; i >= 0; i--) {
+                    VerificationCodeExtractor.VerificationCode match = codeExtractor.extract(messages.get(i));
+                    if (match != null) {
+                        System.out.println("Found verification code " + match);
+                        return match.getCode();
                     }
                 }
-                
-                Thread.sleep(2000); // Check every 2 seconds
+
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                inbox.waitForNewMail(remaining);
             }
-            
-            inbox.close(false);
-            store.close();
+
             System.out.println("No verification code found within timeout");
             return null;
-            
+
         } catch (Exception e) {
             System.out.println("Error retrieving verification code: " + e.getMessage());
             return null;
+        } finally {
+            inbox.close();
         }
     }
-    
-    private String getTextContent(Message message) throws Exception {
-        if (message.isMimeType("text/plain")) {
-            return (String) message.getContent();
-        } else if (message.isMimeType("text/html")) {
-            return (String) message.getContent();
-        } else if (message.isMimeType("multipart/*")) {
-            Multipart multipart = (Multipart) message.getContent();
-            return getTextFromMultipart(multipart);
-        }
-        return "";
-    }
-    
-    private String getTextFromMultipart(Multipart multipart) throws Exception {
-        StringBuilder result = new StringBuilder();
-        int count = multipart.getCount();
-        for (int i = 0; i < count; i++) {
-            BodyPart bodyPart = multipart.getBodyPart(i);
-            if (bodyPart.isMimeType("text/plain")) {
-                result.append(bodyPart.getContent().toString());
-            } else if (bodyPart.isMimeType("text/html")) {
-                result.append(bodyPart.getContent().toString());
-            }
-        }
-        return result.toString();
-    }
-    
-    /**
-     * Extracts verification code from email content using regex patterns.
-     */
-    private String extractVerificationCode(String content) {
-        // Common patterns for verification codes
-        String[] patterns = {
-            "\\b\\d{6}\\b",           // 6-digit code
-            "\\b\\d{4}\\b",           // 4-digit code  
-            "code:\\s*(\\d+)",        // "code: 123456"
-            "verification.*?(\\d{4,6})", // "verification code 123456"
-            "\\b[A-Z0-9]{6}\\b"       // 6-character alphanumeric
-        };
-        
-        for (String patternStr : patterns) {
-            Pattern pattern = Pattern.compile(patternStr, Pattern.CASE_INSENSITIVE);
-            Matcher matcher = pattern.matcher(content);
-            if (matcher.find()) {
-                return matcher.group(matcher.groupCount() > 0 ? 1 : 0);
-            }
-        }
-        
-        return null;
-    }
-}
\ No newline at end of file
+}
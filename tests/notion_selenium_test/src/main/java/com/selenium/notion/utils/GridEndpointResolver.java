@@ -0,0 +1,176 @@
+package com.selenium.notion.utils;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves the Selenium grid hub URL to use for new sessions.
+ * All configured hub URLs are probed concurrently against their /status endpoint and the
+ * first healthy one to answer wins. The choice is cached for the whole JVM and only
+ * re-validated once its TTL has passed, so unreachable hosts cost at most one probe timeout
+ * per TTL instead of one connection timeout per test.
+ */
+public class GridEndpointResolver {
+
+    private static final Pattern READY_PATTERN = Pattern.compile("\"ready\"\\s*:\\s*true");
+    private static final Pattern LEGACY_STATUS_PATTERN = Pattern.compile("\"status\"\\s*:\\s*0\\b");
+
+    private static volatile URL cachedEndpoint;
+    private static volatile long validatedAt;
+
+    private GridEndpointResolver() {
+    }
+
+    /**
+     * Gets the hub URL to create sessions on, probing the configured endpoints if the
+     * cached choice is missing or its TTL has expired.
+     *
+     * @return The URL of a healthy hub.
+     * @throws IllegalStateException if none of the configured hubs is healthy.
+     */
+    public static URL resolve() {
+        URL endpoint = cachedEndpoint;
+        if (endpoint != null && !isExpired()) {
+            return endpoint;
+        }
+
+        synchronized (GridEndpointResolver.class) {
+            if (cachedEndpoint != null && !isExpired()) {
+                return cachedEndpoint;
+            }
+
+            int timeoutMillis = ConfigReader.getGridProbeTimeoutMillis();
+
+            // Re-validate the previous choice on its own before probing everything again
+            if (cachedEndpoint != null && probe(cachedEndpoint, timeoutMillis) >= 0) {
+                validatedAt = System.currentTimeMillis();
+                return cachedEndpoint;
+            }
+
+            URL fastest = probeFastest(ConfigReader.getGridHubUrls(), timeoutMillis);
+            if (fastest == null) {
+                cachedEndpoint = null;
+                throw new IllegalStateException("No healthy Selenium grid found at " + ConfigReader.getGridHubUrls());
+            }
+
+            cachedEndpoint = fastest;
+            validatedAt = System.currentTimeMillis();
+            System.out.println("Using Selenium grid at " + fastest);
+            return fastest;
+        }
+    }
+
+    /**
+     * Forgets the cached hub, e.g. after a session could not be created on it.
+     */
+    public static synchronized void invalidate() {
+        cachedEndpoint = null;
+        validatedAt = 0;
+    }
+
+    private static boolean isExpired() {
+        return System.currentTimeMillis() - validatedAt > ConfigReader.getGridEndpointTtlSeconds() * 1000L;
+    }
+
+    /**
+     * Probes all hubs concurrently and returns the first healthy one to answer.
+     */
+    private static URL probeFastest(List<String> hubUrls, int timeoutMillis) {
+        List<URL> candidates = new ArrayList<>();
+        for (String hubUrl : hubUrls) {
+            try {
+                candidates.add(new URL(hubUrl));
+            } catch (Exception e) {
+                System.out.println("Ignoring invalid grid URL '" + hubUrl + "': " + e.getMessage());
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(candidates.size(), runnable -> {
+            Thread thread = new Thread(runnable, "grid-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<URL> completionService = new ExecutorCompletionService<>(executor);
+        for (URL candidate : candidates) {
+            completionService.submit(() -> probe(candidate, timeoutMillis) >= 0 ? candidate : null);
+        }
+
+        try {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            for (int i = 0; i < candidates.size(); i++) {
+                long remaining = deadline - System.currentTimeMillis();
+                Future<URL> completed = completionService.poll(Math.max(0, remaining), TimeUnit.MILLISECONDS);
+                if (completed == null) {
+                    break;
+                }
+                URL healthy = completed.get();
+                if (healthy != null) {
+                    return healthy;
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            return null;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Queries the /status endpoint of a hub.
+     *
+     * @return The response time in milliseconds, or -1 if the hub is unreachable or not ready.
+     */
+    private static long probe(URL hubUrl, int timeoutMillis) {
+        long start = System.currentTimeMillis();
+        HttpURLConnection connection = null;
+        try {
+            String base = hubUrl.toString().replaceAll("/+$", "");
+            connection = (HttpURLConnection) new URL(base + "/status").openConnection();
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+            if (connection.getResponseCode() != 200) {
+                return -1;
+            }
+
+            StringBuilder body = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    body.append(line);
+                }
+            }
+
+            // Older hubs report "status": 0 instead of a "ready" flag
+            boolean ready = body.indexOf("\"ready\"") >= 0
+                ? READY_PATTERN.matcher(body).find()
+                : LEGACY_STATUS_PATTERN.matcher(body).find();
+            return ready ? System.currentTimeMillis() - start : -1;
+        } catch (Exception e) {
+            return -1;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.selenium.notion.utils;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.json.Json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP proxy that records responses of the Notion site to disk and replays them later.
+ *
+ * The browser talks to this proxy instead of the live site (the test harness points
+ * base.url at {@link #getBaseUrl()}). In record mode each request is forwarded to the upstream
+ * site and the response is stored; in replay mode only stored responses are served, so flows
+ * run without network access. Requests are matched on method, path, the query string without
+ * ignored parameters, the configured match headers and, for requests with a body, a hash of
+ * the body. All other request headers are treated as volatile.
+ *
+ * The store is a HAR-like index.json with one entry per request plus one body file per entry.
+ * Absolute links to the upstream origin in text responses are rewritten to the proxy, but
+ * resources on third-party hosts are still fetched by the browser directly.
+ */
+public class HttpRecordReplayProxy {
+
+    /**
+     * Operating mode of the proxy.
+     */
+    public enum Mode {
+        RECORD,
+        REPLAY
+    }
+
+    private static final Set<String> HOP_BY_HOP_HEADERS = new HashSet<>(Arrays.asList(
+        "connection", "keep-alive", "proxy-authenticate", "proxy-authorization", "te", "trailer",
+        "transfer-encoding", "upgrade", "host", "content-length", "accept-encoding", "content-encoding"
+    ));
+
+    private static final Set<String> VOLATILE_RESPONSE_HEADERS = new HashSet<>(Arrays.asList(
+        "date", "age", "expires", "etag", "last-modified", "cf-ray", "cf-cache-status", "x-request-id",
+        "strict-transport-security", "content-security-policy", "content-security-policy-report-only",
+        "report-to", "nel", "alt-svc", "server-timing"
+    ));
+
+    private final Mode mode;
+    private final File storeDir;
+    private final String upstreamBaseUrl;
+    private final String advertisedHost;
+    private final int requestedPort;
+    private final Set<String> ignoredQueryParams;
+    private final List<String> matchHeaders;
+
+    private final Json json = new Json();
+    private final Map<String, Map<String, Object>> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger recorded = new AtomicInteger();
+    private final AtomicInteger upstreamErrors = new AtomicInteger();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Constructor for HttpRecordReplayProxy.
+     *
+     * @param mode Whether to record upstream responses or replay stored ones.
+     * @param storeDir Directory holding index.json and the recorded bodies.
+     * @param upstreamBaseUrl Origin of the site being recorded, e.g. https://www.notion.so.
+     * @param advertisedHost Host name the browser uses to reach the proxy.
+     * @param port Port to listen on, 0 for any free port.
+     * @param ignoredQueryParams Query parameters ignored when matching requests.
+     * @param matchHeaders Request headers that take part in matching.
+     */
+    public HttpRecordReplayProxy(Mode mode, File storeDir, String upstreamBaseUrl, String advertisedHost, int port,
+                                 List<String> ignoredQueryParams, List<String> matchHeaders) {
+        this.mode = mode;
+        this.storeDir = storeDir;
+        this.upstreamBaseUrl = upstreamBaseUrl.replaceAll("/+$", "");
+        this.advertisedHost = advertisedHost;
+        this.requestedPort = port;
+        this.ignoredQueryParams = new HashSet<>(ignoredQueryParams);
+        this.matchHeaders = new ArrayList<>();
+        for (String header : matchHeaders) {
+            this.matchHeaders.add(header.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Creates a proxy configured from config.properties.
+     *
+     * @param upstreamBaseUrl Origin of the site being recorded.
+     * @return The configured proxy, or null if http.cache.mode is off.
+     */
+    public static HttpRecordReplayProxy fromConfig(String upstreamBaseUrl) {
+        String mode = ConfigReader.getHttpCacheMode();
+        if ("off".equalsIgnoreCase(mode)) {
+            return null;
+        }
+        return new HttpRecordReplayProxy(
+            Mode.valueOf(mode.toUpperCase(Locale.ROOT)),
+            new File(ConfigReader.getProperty("http.cache.dir", "build/http-cache")),
+            upstreamBaseUrl,
+            ConfigReader.getProperty("http.cache.host", "localhost"),
+            ConfigReader.getIntProperty("http.cache.port", 0),
+            ConfigReader.getListProperty("http.cache.ignored.query.params"),
+            ConfigReader.getListProperty("http.cache.match.headers"));
+    }
+
+    /**
+     * Loads the store and starts listening for browser requests.
+     *
+     * @throws IOException if the store cannot be read or the port cannot be bound.
+     */
+    public void start() throws IOException {
+        loadIndex();
+        server = HttpServer.create(new InetSocketAddress(requestedPort), 0);
+        executor = Executors.newFixedThreadPool(8);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        System.out.println("HTTP cache proxy started in " + mode + " mode at " + getBaseUrl() +
+            " (" + entries.size() + " stored responses)");
+    }
+
+    /**
+     * Stops the proxy, writes the index when recording and prints the statistics.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+        if (mode == Mode.RECORD) {
+            try {
+                saveIndex();
+            } catch (IOException e) {
+                System.out.println("Could not write HTTP cache index: " + e.getMessage());
+            }
+        }
+        System.out.println(getStatistics());
+    }
+
+    /**
+     * Gets the URL the browser should use instead of the upstream origin.
+     *
+     * @return The proxy base URL.
+     */
+    public String getBaseUrl() {
+        return "http://" + advertisedHost + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Builds a printable summary of the cache counters.
+     *
+     * @return The statistics summary.
+     */
+    public String getStatistics() {
+        return "HTTP cache statistics:" +
+            " mode=" + mode +
+            ", hits=" + hits.get() +
+            ", misses=" + misses.get() +
+            ", recorded=" + recorded.get() +
+            ", upstreamErrors=" + upstreamErrors.get() +
+            ", stored=" + entries.size();
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            byte[] requestBody = readFully(exchange.getRequestBody());
+            String key = buildKey(exchange, requestBody);
+
+            Map<String, Object> entry;
+            if (mode == Mode.RECORD) {
+                entry = record(exchange, requestBody, key);
+            } else {
+                entry = entries.get(key);
+                if (entry != null) {
+                    hits.incrementAndGet();
+                } else {
+                    misses.incrementAndGet();
+                    System.out.println("HTTP cache miss: " + key.replace('\n', ' '));
+                }
+            }
+
+            if (entry == null) {
+                sendError(exchange, mode == Mode.RECORD ? 502 : 404);
+            } else {
+                serve(exchange, entry);
+            }
+        } catch (Exception e) {
+            System.out.println("HTTP cache proxy error for " + exchange.getRequestURI() + ": " + e.getMessage());
+            sendError(exchange, 500);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Builds the match key: method, path, filtered and sorted query, match headers and body hash.
+     */
+    private String buildKey(HttpExchange exchange, byte[] requestBody) throws Exception {
+        StringBuilder key = new StringBuilder();
+        key.append(exchange.getRequestMethod()).append(' ').append(exchange.getRequestURI().getRawPath());
+
+        Map<String, List<String>> query = new TreeMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                if (pair.isEmpty()) {
+                    continue;
+                }
+                int separator = pair.indexOf('=');
+                String name = URLDecoder.decode(separator < 0 ? pair : pair.substring(0, separator), "UTF-8");
+                if (!ignoredQueryParams.contains(name)) {
+                    query.computeIfAbsent(name, k -> new ArrayList<>()).add(separator < 0 ? "" : pair.substring(separator + 1));
+                }
+            }
+        }
+        if (!query.isEmpty()) {
+            key.append('?').append(query);
+        }
+
+        for (String header : matchHeaders) {
+            String value = exchange.getRequestHeaders().getFirst(header);
+            if (value != null) {
+                key.append('\n').append(header).append(": ").append(value);
+            }
+        }
+
+        if (requestBody.length > 0) {
+            key.append("\nbody: ").append(sha1(requestBody));
+        }
+        return key.toString();
+    }
+
+    private Map<String, Object> record(HttpExchange exchange, byte[] requestBody, String key) {
+        String target = upstreamBaseUrl + exchange.getRequestURI().toString();
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(target).openConnection();
+            connection.setInstanceFollowRedirects(false);
+            connection.setRequestMethod(exchange.getRequestMethod());
+            for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+                String name = header.getKey().toLowerCase(Locale.ROOT);
+                if (HOP_BY_HOP_HEADERS.contains(name)) {
+                    continue;
+                }
+                for (String value : header.getValue()) {
+                    connection.addRequestProperty(header.getKey(), rewriteToUpstream(value));
+                }
+            }
+            connection.setRequestProperty("Accept-Encoding", "identity");
+            if (requestBody.length > 0) {
+                connection.setDoOutput(true);
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(requestBody);
+                }
+            }
+
+            int status = connection.getResponseCode();
+            InputStream bodyStream = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            byte[] body = bodyStream == null ? new byte[0] : readFully(bodyStream);
+
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+                if (header.getKey() == null) {
+                    continue;
+                }
+                String name = header.getKey().toLowerCase(Locale.ROOT);
+                if (!HOP_BY_HOP_HEADERS.contains(name) && !VOLATILE_RESPONSE_HEADERS.contains(name)) {
+                    headers.put(name, new ArrayList<>(header.getValue()));
+                }
+            }
+
+            String bodyFile = "bodies/" + sha1(key.getBytes(StandardCharsets.UTF_8)) + ".bin";
+            File file = new File(storeDir, bodyFile);
+            file.getParentFile().mkdirs();
+            Files.write(file.toPath(), body);
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("key", key);
+            entry.put("method", exchange.getRequestMethod());
+            entry.put("url", target);
+            entry.put("status", status);
+            entry.put("headers", headers);
+            entry.put("body", bodyFile);
+            entries.put(key, entry);
+            recorded.incrementAndGet();
+            return entry;
+        } catch (Exception e) {
+            upstreamErrors.incrementAndGet();
+            System.out.println("Could not record " + target + ": " + e.getMessage());
+            return null;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void serve(HttpExchange exchange, Map<String, Object> entry) throws IOException {
+        int status = ((Number) entry.get("status")).intValue();
+        Map<String, List<String>> headers = (Map<String, List<String>>) entry.get("headers");
+        byte[] body = Files.readAllBytes(new File(storeDir, (String) entry.get("body")).toPath());
+
+        Headers responseHeaders = exchange.getResponseHeaders();
+        String contentType = "";
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            for (String value : header.getValue()) {
+                if ("set-cookie".equals(header.getKey())) {
+                    // The proxy is served over plain HTTP on another host
+                    value = value.replaceAll("(?i);\\s*(domain=[^;]*|secure)", "");
+                }
+                responseHeaders.add(header.getKey(), rewriteToProxy(value));
+            }
+            if ("content-type".equals(header.getKey()) && !header.getValue().isEmpty()) {
+                contentType = header.getValue().get(0).toLowerCase(Locale.ROOT);
+            }
+        }
+        responseHeaders.set("X-Cache", mode == Mode.REPLAY ? "HIT" : "RECORD");
+
+        if (isText(contentType)) {
+            body = rewriteToProxy(new String(body, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+        }
+
+        boolean noBody = "HEAD".equals(exchange.getRequestMethod()) || status == 204 || status == 304;
+        exchange.sendResponseHeaders(status, noBody ? -1 : body.length);
+        if (!noBody) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status) {
+        try {
+            exchange.getResponseHeaders().set("X-Cache", "MISS");
+            exchange.sendResponseHeaders(status, -1);
+        } catch (IOException e) {
+            // Response already started
+        }
+    }
+
+    private boolean isText(String contentType) {
+        return contentType.startsWith("text/") || contentType.contains("javascript") || contentType.contains("json");
+    }
+
+    private String rewriteToProxy(String value) {
+        return value.replace(upstreamBaseUrl, getBaseUrl());
+    }
+
+    private String rewriteToUpstream(String value) {
+        return value.replace(getBaseUrl(), upstreamBaseUrl);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadIndex() throws IOException {
+        File index = new File(storeDir, "index.json");
+        if (!index.exists()) {
+            if (mode == Mode.REPLAY) {
+                System.out.println("WARNING: No recorded responses at " + index + ", every request will miss");
+            }
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(index.toPath(), StandardCharsets.UTF_8)) {
+            Map<String, Object> har = json.toType(reader, Json.MAP_TYPE);
+            for (Object item : (List<Object>) har.getOrDefault("entries", Collections.emptyList())) {
+                Map<String, Object> entry = (Map<String, Object>) item;
+                entries.put((String) entry.get("key"), entry);
+            }
+        }
+    }
+
+    private void saveIndex() throws IOException {
+        storeDir.mkdirs();
+        Map<String, Object> har = new LinkedHashMap<>();
+        har.put("upstream", upstreamBaseUrl);
+        har.put("entries", new ArrayList<>(new TreeMap<>(entries).values()));
+        try (Writer writer = Files.newBufferedWriter(new File(storeDir, "index.json").toPath(), StandardCharsets.UTF_8)) {
+            writer.write(json.toJson(har));
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha1(byte[] data) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-1").digest(data)) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,286 @@
+package com.selenium.notion.utils;
+
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPStore;
+
+import javax.mail.Address;
+import javax.mail.FetchProfile;
+import javax.mail.Flags;
+import javax.mail.Folder;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.UIDFolder;
+import javax.mail.search.FlagTerm;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IMAP connection to the INBOX that verification emails are delivered to.
+ *
+ * Scans are incremental: the first scan of a mailbox (or after its UIDVALIDITY changed) looks
+ * at all unread messages, later scans fetch only UIDs above the last one seen. Envelopes are
+ * prefetched in one batch, and only messages whose subject and sender look like a Notion code
+ * email are returned, so their bodies are downloaded only when needed. The scan position
+ * survives {@link #close()}, so reopening the inbox does not return the same messages again.
+ *
+ * Between scans the inbox is kept in IMAP IDLE, so callers wake up as soon as the server
+ * announces new mail. Servers without the IDLE capability, or email.wait.mode=poll, fall back
+ * to waiting email.poll.interval.millis between scans.
+ */
+public class ImapInbox {
+
+    // Daemon thread that aborts an IDLE command once the caller's wait has passed
+    private static final ScheduledExecutorService IDLE_WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "imap-idle-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String account;
+    private final String password;
+    private final String imapHost;
+    private final int imapPort;
+    private final boolean ssl;
+    private final boolean idleEnabled;
+    private final long pollIntervalMillis;
+    private final Object pollMonitor = new Object();
+
+    private IMAPStore store;
+    private volatile IMAPFolder inbox;
+    private boolean idle;
+    private int messageCountAtScan;
+
+    // Position in the mailbox, kept across connections so each scan only fetches new messages
+    private long uidValidity = -1;
+    private long lastSeenUid;
+
+    /**
+     * Constructor for ImapInbox.
+     *
+     * @param account The account to read verification emails from.
+     * @param password The account password (an app password for Gmail).
+     * @param imapHost The IMAP server host.
+     * @param imapPort The IMAP server port.
+     * @param ssl Whether to connect with imaps instead of plain imap.
+     * @param idleEnabled Whether to wait in IMAP IDLE when the server supports it.
+     * @param pollIntervalMillis Wait between scans when IDLE is not used.
+     */
+    public ImapInbox(String account, String password, String imapHost, int imapPort, boolean ssl,
+                     boolean idleEnabled, long pollIntervalMillis) {
+        this.account = account;
+        this.password = password;
+        this.imapHost = imapHost;
+        this.imapPort = imapPort;
+        this.ssl = ssl;
+        this.idleEnabled = idleEnabled;
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    /**
+     * Creates an inbox for an account on the IMAP server configured in config.properties.
+     *
+     * @param account The account to read verification emails from.
+     * @param password The account password.
+     * @return The configured inbox, not yet opened.
+     */
+    public static ImapInbox fromConfig(String account, String password) {
+        return fromConfig(account, password,
+            ConfigReader.getProperty("email.imap.host", "imap.gmail.com"),
+            ConfigReader.getIntProperty("email.imap.port", 993),
+            Boolean.parseBoolean(ConfigReader.getProperty("email.imap.ssl", "true")));
+    }
+
+    /**
+     * Creates an inbox for an account on an explicit IMAP server, with the wait mode
+     * configured in config.properties.
+     *
+     * @param account The account to read verification emails from.
+     * @param password The account password.
+     * @param imapHost The IMAP server host.
+     * @param imapPort The IMAP server port.
+     * @param ssl Whether to connect with imaps instead of plain imap.
+     * @return The configured inbox, not yet opened.
+     */
+    public static ImapInbox fromConfig(String account, String password, String imapHost, int imapPort, boolean ssl) {
+        return new ImapInbox(account, password, imapHost, imapPort, ssl,
+            !"poll".equalsIgnoreCase(ConfigReader.getProperty("email.wait.mode", "idle")),
+            ConfigReader.getIntProperty("email.poll.interval.millis", 2000));
+    }
+
+    /**
+     * Connects to the server and opens the INBOX read-only.
+     *
+     * @throws MessagingException if the connection or login fails.
+     */
+    public void open() throws MessagingException {
+        String protocol = ssl ? "imaps" : "imap";
+        Properties props = new Properties();
+        props.put("mail.store.protocol", protocol);
+        props.put("mail." + protocol + ".host", imapHost);
+        props.put("mail." + protocol + ".port", String.valueOf(imapPort));
+        props.put("mail." + protocol + ".ssl.enable", String.valueOf(ssl));
+
+        // The default session would keep the settings of the first server it was created for
+        Session session = Session.getInstance(props);
+        store = (IMAPStore) session.getStore(protocol);
+        store.connect(imapHost, imapPort, account, password);
+
+        IMAPFolder folder = (IMAPFolder) store.getFolder("INBOX");
+        folder.open(Folder.READ_ONLY);
+        inbox = folder;
+
+        idle = idleEnabled && store.hasCapability("IDLE");
+        System.out.println("Waiting for verification email using " + (idle ? "IMAP IDLE" : "polling"));
+    }
+
+    /**
+     * @return true while the connection and the INBOX are open.
+     */
+    public boolean isOpen() {
+        IMAPFolder folder = inbox;
+        return folder != null && folder.isOpen();
+    }
+
+    /**
+     * Fetches the messages that arrived since the last scan and keeps those whose subject
+     * mentions a code and whose subject or sender mentions Notion. Envelopes (subject, sender,
+     * recipients and received date) are already loaded; bodies are not.
+     *
+     * @return The new verification emails, oldest first.
+     * @throws MessagingException if the mailbox cannot be read.
+     */
+    public List<Message> fetchNewVerificationEmails() throws MessagingException {
+        // Messages announced while scanning are picked up before waiting again
+        messageCountAtScan = inbox.getMessageCount();
+
+        Message[] messages;
+        long scannedUpTo;
+        long validity = inbox.getUIDValidity();
+        if (validity != uidValidity) {
+            uidValidity = validity;
+            scannedUpTo = 0;
+            lastSeenUid = Math.max(0, inbox.getUIDNext() - 1);
+            messages = inbox.search(new FlagTerm(new Flags(Flags.Flag.SEEN), false));
+        } else {
+            scannedUpTo = lastSeenUid;
+            messages = inbox.getMessagesByUID(lastSeenUid + 1, UIDFolder.LASTUID);
+        }
+
+        List<Message> verificationEmails = new ArrayList<>();
+        if (messages.length == 0) {
+            return verificationEmails;
+        }
+
+        FetchProfile headers = new FetchProfile();
+        headers.add(FetchProfile.Item.ENVELOPE);
+        headers.add(UIDFolder.FetchProfileItem.UID);
+        inbox.fetch(messages, headers);
+
+        for (Message message : messages) {
+            long uid = inbox.getUID(message);
+            // "UID n:*" also returns the newest message when nothing is above n
+            if (uid <= scannedUpTo) {
+                continue;
+            }
+            lastSeenUid = Math.max(lastSeenUid, uid);
+            if (isVerificationEmail(message)) {
+                verificationEmails.add(message);
+            }
+        }
+        return verificationEmails;
+    }
+
+    /**
+     * Waits until the server announces new mail, the wait expires or {@link #wakeUp()} is
+     * called. Returns at once if messages arrived during the last scan.
+     *
+     * @param maxWaitMillis Maximum time to wait.
+     * @throws MessagingException if the connection fails while waiting.
+     * @throws InterruptedException if the thread is interrupted while polling.
+     */
+    public void waitForNewMail(long maxWaitMillis) throws MessagingException, InterruptedException {
+        if (maxWaitMillis <= 0 || inbox.getMessageCount() != messageCountAtScan) {
+            return;
+        }
+        if (!idle) {
+            synchronized (pollMonitor) {
+                pollMonitor.wait(Math.min(pollIntervalMillis, maxWaitMillis));
+            }
+            return;
+        }
+
+        ScheduledFuture<?> abort = IDLE_WATCHDOG.schedule(this::wakeUp, maxWaitMillis, TimeUnit.MILLISECONDS);
+        try {
+            inbox.idle(true);
+        } finally {
+            abort.cancel(false);
+        }
+    }
+
+    /**
+     * Ends a {@link #waitForNewMail(long)} in progress on another thread. An IDLE command is
+     * ended by issuing a NOOP, which makes the folder terminate the IDLE.
+     */
+    public void wakeUp() {
+        synchronized (pollMonitor) {
+            pollMonitor.notifyAll();
+        }
+        IMAPFolder folder = inbox;
+        if (folder == null) {
+            return;
+        }
+        try {
+            folder.doCommand(protocol -> {
+                protocol.noop();
+                return null;
+            });
+        } catch (MessagingException e) {
+            // The folder is closed or the connection is gone; idle() returns either way
+        }
+    }
+
+    /**
+     * Closes the INBOX and the connection. The scan position is kept for the next {@link #open()}.
+     */
+    public void close() {
+        IMAPFolder folder = inbox;
+        inbox = null;
+        try {
+            if (folder != null && folder.isOpen()) {
+                folder.close(false);
+            }
+            if (store != null) {
+                store.close();
+            }
+        } catch (MessagingException e) {
+            System.out.println("Error closing mailbox: " + e.getMessage());
+        } finally {
+            store = null;
+        }
+    }
+
+    private boolean isVerificationEmail(Message message) throws MessagingException {
+        String subject = message.getSubject();
+        if (subject == null || !subject.toLowerCase().contains("code")) {
+            return false;
+        }
+        if (subject.toLowerCase().contains("notion")) {
+            return true;
+        }
+        Address[] from = message.getFrom();
+        if (from != null) {
+            for (Address sender : from) {
+                if (sender.toString().toLowerCase().contains("notion")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
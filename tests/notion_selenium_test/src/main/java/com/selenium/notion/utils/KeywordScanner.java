@@ -0,0 +1,234 @@
+package com.selenium.notion.utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Finds all occurrences of a set of keywords, ignoring case, in a single pass over a text.
+ *
+ * Uses an Aho-Corasick automaton, so the cost depends on the length of the text and not on
+ * the number of keywords. The same algorithm is available in the browser
+ * (scripts/keyword-scanner.js), so the visible text or the source of a page can be scanned
+ * without transferring it: only the hit positions come back. Both versions report every
+ * occurrence, including keywords that overlap or lie inside longer ones, and
+ * {@link #scan(CharSequence, int)} caps the positions per keyword the way the browser scan does.
+ */
+public class KeywordScanner {
+
+    // Positions reported per keyword by the in-browser scan
+    private static final int MAX_BROWSER_POSITIONS = 100;
+
+    private final List<String> keywords;
+    private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+    private final List<Integer> failures = new ArrayList<>();
+    private final List<List<Integer>> outputs = new ArrayList<>();
+
+    /**
+     * Constructor for KeywordScanner.
+     *
+     * @param keywords The keywords to search for; matching ignores case.
+     */
+    public KeywordScanner(String... keywords) {
+        this(Arrays.asList(keywords));
+    }
+
+    /**
+     * Constructor for KeywordScanner.
+     *
+     * @param keywords The keywords to search for; matching ignores case.
+     */
+    public KeywordScanner(Collection<String> keywords) {
+        Set<String> unique = new LinkedHashSet<>();
+        for (String keyword : keywords) {
+            if (keyword != null && !keyword.isEmpty()) {
+                unique.add(lowerCase(keyword));
+            }
+        }
+        this.keywords = new ArrayList<>(unique);
+        build();
+    }
+
+    /**
+     * Scans a text for all keywords.
+     *
+     * @param text The text to scan.
+     * @return The positions of every keyword occurrence.
+     */
+    public Result scan(CharSequence text) {
+        return scan(text, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Scans a text for all keywords, keeping the first positions of each keyword.
+     *
+     * @param text The text to scan.
+     * @param maxPositions Maximum number of positions reported per keyword.
+     * @return The positions of the keyword occurrences.
+     */
+    public Result scan(CharSequence text, int maxPositions) {
+        Map<String, List<Integer>> hits = new LinkedHashMap<>();
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            while (state != 0 && !transitions.get(state).containsKey(c)) {
+                state = failures.get(state);
+            }
+            Integer next = transitions.get(state).get(c);
+            state = next == null ? 0 : next;
+            for (int keywordIndex : outputs.get(state)) {
+                String keyword = keywords.get(keywordIndex);
+                List<Integer> positions = hits.computeIfAbsent(keyword, k -> new ArrayList<>());
+                if (positions.size() < maxPositions) {
+                    positions.add(i - keyword.length() + 1);
+                }
+            }
+        }
+        return new Result(hits);
+    }
+
+    /**
+     * Scans the visible text (innerText) of the current page in the browser.
+     *
+     * @param driver The WebDriver instance.
+     * @return The positions of keyword occurrences, at most 100 per keyword.
+     */
+    public Result scanPageText(WebDriver driver) {
+        return scanInBrowser(driver, "document.body ? document.body.innerText : ''");
+    }
+
+    /**
+     * Scans the markup of the current page in the browser, like searching getPageSource()
+     * but without transferring it.
+     *
+     * @param driver The WebDriver instance.
+     * @return The positions of keyword occurrences, at most 100 per keyword.
+     */
+    public Result scanPageSource(WebDriver driver) {
+        return scanInBrowser(driver, "document.documentElement.outerHTML");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Result scanInBrowser(WebDriver driver, String textExpression) {
+        Object result = ((JavascriptExecutor) driver).executeScript(
+            BrowserScripts.get("keyword-scanner.js") +
+                "return scanKeywords(" + textExpression + ", arguments[0], arguments[1]);",
+            keywords, MAX_BROWSER_POSITIONS);
+
+        Map<String, List<Integer>> hits = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : ((Map<String, Object>) result).entrySet()) {
+            List<Integer> positions = new ArrayList<>();
+            for (Object position : (List<Object>) entry.getValue()) {
+                positions.add(((Number) position).intValue());
+            }
+            hits.put(entry.getKey(), positions);
+        }
+        return new Result(hits);
+    }
+
+    private void build() {
+        addState();
+        for (int k = 0; k < keywords.size(); k++) {
+            int state = 0;
+            for (char c : keywords.get(k).toCharArray()) {
+                Integer next = transitions.get(state).get(c);
+                if (next == null) {
+                    next = addState();
+                    transitions.get(state).put(c, next);
+                }
+                state = next;
+            }
+            outputs.get(state).add(k);
+        }
+
+        // Breadth-first, so the failure state of a node is complete before its children
+        Queue<Integer> queue = new ArrayDeque<>(transitions.get(0).values());
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Map.Entry<Character, Integer> transition : transitions.get(state).entrySet()) {
+                int child = transition.getValue();
+                int failure = failures.get(state);
+                while (failure != 0 && !transitions.get(failure).containsKey(transition.getKey())) {
+                    failure = failures.get(failure);
+                }
+                Integer target = transitions.get(failure).get(transition.getKey());
+                failures.set(child, target == null || target == child ? 0 : target);
+                // A node also ends every keyword that ends at its failure state
+                outputs.get(child).addAll(outputs.get(failures.get(child)));
+                queue.add(child);
+            }
+        }
+    }
+
+    private int addState() {
+        transitions.add(new HashMap<>());
+        failures.add(0);
+        outputs.add(new ArrayList<>());
+        return transitions.size() - 1;
+    }
+
+    private static String lowerCase(String text) {
+        StringBuilder lower = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            lower.append(Character.toLowerCase(text.charAt(i)));
+        }
+        return lower.toString();
+    }
+
+    /**
+     * Keyword occurrences found by a scan.
+     */
+    public static class Result {
+        private final Map<String, List<Integer>> hits;
+
+        public Result(Map<String, List<Integer>> hits) {
+            this.hits = hits;
+        }
+
+        /**
+         * @return true if the keyword occurs in the text.
+         */
+        public boolean contains(String keyword) {
+            return hits.containsKey(lowerCase(keyword));
+        }
+
+        /**
+         * @return true if any of the keywords occurs in the text.
+         */
+        public boolean containsAny(String... keywords) {
+            for (String keyword : keywords) {
+                if (contains(keyword)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return Start positions of the keyword in the text, empty if it does not occur.
+         */
+        public List<Integer> getPositions(String keyword) {
+            List<Integer> positions = hits.get(lowerCase(keyword));
+            return positions == null ? Collections.<Integer>emptyList() : Collections.unmodifiableList(positions);
+        }
+
+        /**
+         * @return The keywords that occur in the text.
+         */
+        public Set<String> getMatchedKeywords() {
+            return Collections.unmodifiableSet(hits.keySet());
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.selenium.notion.utils;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Learns which fallback locator wins for a given page and element, so the winning
+ * strategy is tried first on later lookups.
+ *
+ * Entries are keyed by a URL pattern (host and path with ID-like segments replaced by *)
+ * plus the element description. Each locator keeps a decayed success rate and an average
+ * lookup latency; candidates are ordered by success rate, then latency, and unknown
+ * locators keep their original position relative to each other. The cache is persisted to
+ * a small JSON file between runs and entries unused for longer than the maximum age are dropped.
+ *
+ * Candidate lists usually end in catch-all fallbacks such as //input or //button, which match
+ * whatever is on the page, e.g. the wrong field during a partial render. The first such
+ * locator and everything after it keep their default order at the end of the list, and
+ * lookups they win are not recorded, so only the specific locators are ever reordered.
+ */
+public class LocatorStrategyCache {
+
+    // Weight of older outcomes when a new one is recorded, so recent runs dominate
+    private static final double DECAY = 0.9;
+
+    // A bare element step, optionally narrowed only by its role, e.g. //input or //div[@role='button']
+    private static final Pattern GENERIC_STEP = Pattern.compile(
+        "//[\\w*-]+(\\[(contains\\(@role,\\s*'[^']*'\\)|@role\\s*=\\s*'[^']*')\\])?");
+
+    private static LocatorStrategyCache instance;
+
+    private final File file;
+    private final long maxAgeMillis;
+    private final Json json = new Json();
+    private final Map<String, Map<String, LocatorStats>> entries = new HashMap<>();
+    private boolean dirty;
+
+    /**
+     * Constructor for LocatorStrategyCache.
+     *
+     * @param file JSON file the cache is loaded from and saved to.
+     * @param maxAgeDays Entries unused for longer than this are dropped.
+     */
+    public LocatorStrategyCache(File file, int maxAgeDays) {
+        this.file = file;
+        this.maxAgeMillis = maxAgeDays * 24L * 60 * 60 * 1000;
+        load();
+    }
+
+    /**
+     * Gets the shared cache configured from config.properties. It is saved when the JVM exits.
+     *
+     * @return The shared locator strategy cache.
+     */
+    public static synchronized LocatorStrategyCache getInstance() {
+        if (instance == null) {
+            LocatorStrategyCache cache = new LocatorStrategyCache(
+                new File(ConfigReader.getProperty("locator.cache.file", "build/locator-cache.json")),
+                ConfigReader.getIntProperty("locator.cache.max.age.days", 14));
+            Runtime.getRuntime().addShutdownHook(new Thread(cache::save, "locator-cache-save"));
+            instance = cache;
+        }
+        return instance;
+    }
+
+    /**
+     * Orders candidate locators so the ones that won most often and fastest come first.
+     *
+     * @param url The URL of the page being searched.
+     * @param description The description of the element being searched.
+     * @param candidates The candidate locators in their default order.
+     * @return The candidates in learned order.
+     */
+    public synchronized String[] order(String url, String description, String[] candidates) {
+        Map<String, LocatorStats> stats = entries.get(key(url, description));
+        if (stats == null) {
+            return candidates;
+        }
+
+        int pinned = firstGenericIndex(candidates);
+        List<String> ordered = new ArrayList<>(Arrays.asList(candidates).subList(0, pinned));
+        // Stable sort keeps the default order among locators without history
+        ordered.sort(Comparator
+            .comparingDouble((String locator) -> -successRate(stats.get(locator)))
+            .thenComparingDouble(locator -> stats.containsKey(locator) ? stats.get(locator).latencyMillis : Double.MAX_VALUE));
+        ordered.addAll(Arrays.asList(candidates).subList(pinned, candidates.length));
+        return ordered.toArray(new String[0]);
+    }
+
+    /**
+     * Records the outcome of a lookup: the winning locator succeeded and every locator
+     * ordered before it was tried and failed. Nothing is recorded when a catch-all fallback
+     * won, since the specific locators may only have missed a page that was not fully rendered.
+     *
+     * @param url The URL of the page that was searched.
+     * @param description The description of the element that was searched.
+     * @param orderedCandidates The candidates in the order they were tried.
+     * @param winnerIndex Index of the winning candidate.
+     * @param latencyMillis How long the lookup took.
+     */
+    public synchronized void recordSuccess(String url, String description, String[] orderedCandidates,
+                                           int winnerIndex, long latencyMillis) {
+        if (winnerIndex >= firstGenericIndex(orderedCandidates)) {
+            return;
+        }
+        Map<String, LocatorStats> stats = entries.computeIfAbsent(key(url, description), k -> new HashMap<>());
+        long now = System.currentTimeMillis();
+        for (int i = 0; i <= winnerIndex; i++) {
+            LocatorStats locatorStats = stats.computeIfAbsent(orderedCandidates[i], k -> new LocatorStats());
+            locatorStats.attempts = locatorStats.attempts * DECAY + 1;
+            locatorStats.successes = locatorStats.successes * DECAY + (i == winnerIndex ? 1 : 0);
+            locatorStats.lastUsedAt = now;
+            if (i == winnerIndex) {
+                locatorStats.latencyMillis = locatorStats.latencyMillis == 0
+                    ? latencyMillis
+                    : locatorStats.latencyMillis * DECAY + latencyMillis * (1 - DECAY);
+            }
+        }
+        dirty = true;
+    }
+
+    /**
+     * Writes the cache to disk if it changed since it was loaded.
+     */
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+        Map<String, Object> data = new HashMap<>();
+        for (Map.Entry<String, Map<String, LocatorStats>> entry : entries.entrySet()) {
+            Map<String, Object> locators = new HashMap<>();
+            for (Map.Entry<String, LocatorStats> locator : entry.getValue().entrySet()) {
+                locators.put(locator.getKey(), locator.getValue().toMap());
+            }
+            data.put(entry.getKey(), locators);
+        }
+        try {
+            file.getAbsoluteFile().getParentFile().mkdirs();
+            try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                writer.write(json.toJson(data));
+            }
+            dirty = false;
+        } catch (IOException e) {
+            System.out.println("Could not save locator cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reduces a URL to a pattern shared by pages of the same kind.
+     *
+     * @param url The page URL.
+     * @return The host and path with ID-like segments replaced by *.
+     */
+    static String urlPattern(String url) {
+        try {
+            URI uri = new URI(url);
+            StringBuilder pattern = new StringBuilder(uri.getHost() == null ? "" : uri.getHost());
+            for (String segment : (uri.getPath() == null ? "" : uri.getPath()).split("/")) {
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                boolean idLike = segment.matches(".*\\d.*") && segment.length() >= 8;
+                pattern.append('/').append(idLike ? "*" : segment);
+            }
+            return pattern.toString();
+        } catch (Exception e) {
+            return url;
+        }
+    }
+
+    /**
+     * Checks whether a locator is a catch-all fallback: any branch of it selects elements by
+     * tag alone, or by tag and role.
+     *
+     * @param xpath The locator.
+     * @return true if the locator matches elements regardless of their purpose.
+     */
+    static boolean isGeneric(String xpath) {
+        for (String branch : xpath.split("\\|")) {
+            if (GENERIC_STEP.matcher(branch.trim()).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int firstGenericIndex(String[] candidates) {
+        for (int i = 0; i < candidates.length; i++) {
+            if (isGeneric(candidates[i])) {
+                return i;
+            }
+        }
+        return candidates.length;
+    }
+
+    private static String key(String url, String description) {
+        return urlPattern(url) + " | " + description;
+    }
+
+    private static double successRate(LocatorStats stats) {
+        // Laplace smoothing: unknown locators rank at 0.5
+        return stats == null ? 0.5 : (stats.successes + 1) / (stats.attempts + 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        long oldest = System.currentTimeMillis() - maxAgeMillis;
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            Map<String, Object> data = json.toType(reader, Json.MAP_TYPE);
+            for (Map.Entry<String, Object> entry : data.entrySet()) {
+                Map<String, LocatorStats> locators = new HashMap<>();
+                for (Map.Entry<String, Object> locator : ((Map<String, Object>) entry.getValue()).entrySet()) {
+                    LocatorStats stats = LocatorStats.fromMap((Map<String, Object>) locator.getValue());
+                    if (stats.lastUsedAt >= oldest) {
+                        locators.put(locator.getKey(), stats);
+                    }
+                }
+                if (!locators.isEmpty()) {
+                    entries.put(entry.getKey(), locators);
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("Ignoring unreadable locator cache " + file + ": " + e.getMessage());
+            entries.clear();
+        }
+    }
+
+    /**
+     * Decayed outcome counters of a single locator.
+     */
+    private static class LocatorStats {
+        private double attempts;
+        private double successes;
+        private double latencyMillis;
+        private long lastUsedAt;
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("attempts", attempts);
+            map.put("successes", successes);
+            map.put("latencyMillis", latencyMillis);
+            map.put("lastUsedAt", lastUsedAt);
+            return map;
+        }
+
+        private static LocatorStats fromMap(Map<String, Object> map) {
+            LocatorStats stats = new LocatorStats();
+            stats.attempts = ((Number) map.get("attempts")).doubleValue();
+            stats.successes = ((Number) map.get("successes")).doubleValue();
+            stats.latencyMillis = ((Number) map.get("latencyMillis")).doubleValue();
+            stats.lastUsedAt = ((Number) map.get("lastUsedAt")).longValue();
+            return stats;
+        }
+    }
+}
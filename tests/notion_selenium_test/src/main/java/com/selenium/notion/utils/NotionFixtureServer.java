@@ -0,0 +1,263 @@
+package com.selenium.notion.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.json.Json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded HTTP server that stands in for notion.so, so the page objects and login flow
+ * can be exercised without network access.
+ *
+ * It serves a small single page app (src/main/resources/fixture) with the home, about,
+ * login, verification code, workspace and logout screens, backed by an in-memory JSON API.
+ * Verification codes are not mailed; tests read them with {@link #getLastCode(String)}.
+ * Every request can be slowed down by a fixed artificial latency, and API requests can be
+ * failed with HTTP 503 at a configurable rate to exercise retry and error handling paths.
+ */
+public class NotionFixtureServer {
+
+    private static final String SESSION_COOKIE = "fixture_session";
+
+    private final String advertisedHost;
+    private final int requestedPort;
+    private final long latencyMillis;
+    private final double failureRate;
+
+    private final Json json = new Json();
+    private final Map<String, String> codesByEmail = new ConcurrentHashMap<>();
+    private final Map<String, String> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger injectedFailures = new AtomicInteger();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Constructor for NotionFixtureServer.
+     *
+     * @param advertisedHost Host name the browser uses to reach the server.
+     * @param port Port to listen on, 0 for any free port.
+     * @param latencyMillis Artificial delay added to every request.
+     * @param failureRate Fraction of API requests answered with HTTP 503, between 0 and 1.
+     */
+    public NotionFixtureServer(String advertisedHost, int port, long latencyMillis, double failureRate) {
+        this.advertisedHost = advertisedHost;
+        this.requestedPort = port;
+        this.latencyMillis = latencyMillis;
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * Creates a fixture server configured from config.properties.
+     *
+     * @return The configured server, or null if fixture.enabled is false.
+     */
+    public static NotionFixtureServer fromConfig() {
+        if (!Boolean.parseBoolean(ConfigReader.getProperty("fixture.enabled", "false"))) {
+            return null;
+        }
+        return new NotionFixtureServer(
+            ConfigReader.getProperty("fixture.host", "localhost"),
+            ConfigReader.getIntProperty("fixture.port", 0),
+            ConfigReader.getIntProperty("fixture.latency.millis", 0),
+            Double.parseDouble(ConfigReader.getProperty("fixture.failure.rate", "0")));
+    }
+
+    /**
+     * Starts serving the stand-in app.
+     *
+     * @throws IOException if the port cannot be bound.
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(requestedPort), 0);
+        executor = Executors.newFixedThreadPool(16);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        System.out.println("Notion fixture server started at " + getBaseUrl() +
+            " (latency " + latencyMillis + " ms, failure rate " + failureRate + ")");
+    }
+
+    /**
+     * Stops the server and prints its statistics.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+        System.out.println("Notion fixture statistics: requests=" + requests.get() +
+            ", injectedFailures=" + injectedFailures.get());
+    }
+
+    /**
+     * Gets the URL the browser should use instead of https://www.notion.so.
+     *
+     * @return The server base URL.
+     */
+    public String getBaseUrl() {
+        return "http://" + advertisedHost + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Gets the last verification code issued for an email address.
+     *
+     * @param email The email address the code was requested for.
+     * @return The verification code, or null if none was requested.
+     */
+    public String getLastCode(String email) {
+        return email == null ? null : codesByEmail.get(email.toLowerCase());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            if (path.startsWith("/api/")) {
+                if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+                    injectedFailures.incrementAndGet();
+                    sendJson(exchange, 503, Collections.singletonMap("error", "injected failure"));
+                } else {
+                    handleApi(exchange, path);
+                }
+            } else if (path.equals("/logout")) {
+                sessions.remove(getSessionToken(exchange));
+                exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=; Path=/; Max-Age=0");
+                exchange.getResponseHeaders().set("Location", "/login");
+                exchange.sendResponseHeaders(302, -1);
+            } else if (path.equals("/app.js")) {
+                sendResource(exchange, "/fixture/app.js", "application/javascript");
+            } else {
+                // Client-side routing: every other path renders the app shell
+                sendResource(exchange, "/fixture/index.html", "text/html; charset=utf-8");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.out.println("Fixture server error for " + exchange.getRequestURI() + ": " + e.getMessage());
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleApi(HttpExchange exchange, String path) throws IOException {
+        Map<String, Object> body = readJson(exchange);
+        String email = body.get("email") == null ? null : body.get("email").toString().toLowerCase();
+
+        switch (path) {
+            case "/api/sendCode":
+                if (email == null || !email.contains("@")) {
+                    sendJson(exchange, 400, Collections.singletonMap("error", "invalid email"));
+                    return;
+                }
+                String code = String.format("%06d", ThreadLocalRandom.current().nextInt(1000000));
+                codesByEmail.put(email, code);
+                sendJson(exchange, 200, Collections.singletonMap("sent", true));
+                return;
+
+            case "/api/verify":
+                if (email == null || !String.valueOf(body.get("code")).trim().equals(codesByEmail.get(email))) {
+                    sendJson(exchange, 401, Collections.singletonMap("error", "invalid code"));
+                    return;
+                }
+                String token = UUID.randomUUID().toString();
+                sessions.put(token, email);
+                exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + token + "; Path=/; HttpOnly");
+                sendJson(exchange, 200, Collections.singletonMap("email", email));
+                return;
+
+            case "/api/session":
+                Map<String, Object> session = new HashMap<>();
+                session.put("email", sessions.get(getSessionToken(exchange)));
+                sendJson(exchange, 200, session);
+                return;
+
+            case "/api/logout":
+                sessions.remove(getSessionToken(exchange));
+                exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=; Path=/; Max-Age=0");
+                sendJson(exchange, 200, Collections.singletonMap("loggedOut", true));
+                return;
+
+            default:
+                sendJson(exchange, 404, Collections.singletonMap("error", "unknown endpoint"));
+        }
+    }
+
+    private String getSessionToken(HttpExchange exchange) {
+        String cookies = exchange.getRequestHeaders().getFirst("Cookie");
+        if (cookies == null) {
+            return "";
+        }
+        for (String cookie : cookies.split(";")) {
+            String[] parts = cookie.trim().split("=", 2);
+            if (parts.length == 2 && parts[0].equals(SESSION_COOKIE)) {
+                return parts[1];
+            }
+        }
+        return "";
+    }
+
+    private Map<String, Object> readJson(HttpExchange exchange) throws IOException {
+        String text = new String(readFully(exchange.getRequestBody()), StandardCharsets.UTF_8).trim();
+        if (text.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return json.toType(text, Json.MAP_TYPE);
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Map<String, ?> body) throws IOException {
+        byte[] bytes = json.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void sendResource(HttpExchange exchange, String resource, String contentType) throws IOException {
+        byte[] bytes;
+        try (InputStream in = NotionFixtureServer.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            bytes = readFully(in);
+        }
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
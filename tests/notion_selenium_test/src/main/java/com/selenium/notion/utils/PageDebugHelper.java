@@ -1,15 +1,33 @@
 package com.selenium.notion.utils;
 
-import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
+import org.openqa.selenium.json.Json;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Helper class for debugging page structure and elements.
+ * The page is captured in a single browser call as a JSON snapshot and the report is
+ * rendered locally, so a debug dump does not cost a round trip per element attribute.
  */
 public class PageDebugHelper {
-    
+
+    // Elements listed per type, the totals are always reported
+    private static final int MAX_ELEMENTS = 10;
+
+    private static final List<String> KEYWORDS =
+        Arrays.asList("email", "password", "login", "sign in", "continue", "submit", "verification");
+
+    // React/Vue/Angular indicators
+    private static final List<String> FRAMEWORKS =
+        Arrays.asList("react", "vue", "angular", "ng-", "data-reactroot");
+
     /**
      * Prints detailed information about the current page structure.
      */
@@ -17,152 +35,161 @@ public class PageDebugHelper {
         System.out.println("\n=== PAGE STRUCTURE DEBUG ===");
         
         try {
-            System.out.println("Current URL: " + driver.getCurrentUrl());
-            System.out.println("Page Title: " + driver.getTitle());
-            
-            // Check for common input types
-            debugInputFields(driver);
-            
-            // Check for buttons
-            debugButtons(driver);
-            
-            // Check for forms
-            debugForms(driver);
-            
-            // Check page source for keywords
-            debugPageContent(driver);
-            
-            // Check for React/SPA indicators
-            debugSPAIndicators(driver);
-            
+            printPageSnapshot(capturePageSnapshot(driver));
         } catch (Exception e) {
             System.out.println("Error during page debug: " + e.getMessage());
         }
         
         System.out.println("=== END PAGE DEBUG ===\n");
     }
+
+    /**
+     * Captures inputs, buttons, forms, keyword hits and SPA indicators of the current page
+     * in one executeScript call.
+     *
+     * @param driver The WebDriver instance.
+     * @return The snapshot as a JSON string.
+     */
+    public static String capturePageSnapshotJson(WebDriver driver) {
+        List<String> keywords = new ArrayList<>(KEYWORDS);
+        keywords.addAll(FRAMEWORKS);
+        return (String) ((JavascriptExecutor) driver).executeScript(
+            BrowserScripts.get("keyword-scanner.js") + BrowserScripts.get("page-snapshot.js"), MAX_ELEMENTS, keywords);
+    }
+
+    /**
+     * Captures the current page in one executeScript call, see {@link #capturePageSnapshotJson(WebDriver)}.
+     *
+     * @param driver The WebDriver instance.
+     * @return The parsed snapshot.
+     */
+    public static Map<String, Object> capturePageSnapshot(WebDriver driver) {
+        return new Json().toType(capturePageSnapshotJson(driver), Json.MAP_TYPE);
+    }
+
+    /**
+     * Prints the debug report for a snapshot taken with {@link #capturePageSnapshot(WebDriver)}.
+     *
+     * @param snapshot The parsed snapshot.
+     */
+    public static void printPageSnapshot(Map<String, Object> snapshot) {
+        System.out.println("Current URL: " + snapshot.get("url"));
+        System.out.println("Page Title: " + snapshot.get("title"));
+        
+        // Check for common input types
+        printInputFields(section(snapshot, "inputs"));
+        
+        // Check for buttons
+        printButtons(section(snapshot, "buttons"));
+        
+        // Check for forms
+        printForms(section(snapshot, "forms"));
+        
+        // Check page source for keywords
+        printPageContent(section(snapshot, "keywords"));
+        
+        // Check for React/SPA indicators
+        printSPAIndicators(section(snapshot, "spa"));
+    }
     
-    private static void debugInputFields(WebDriver driver) {
+    private static void printInputFields(Map<String, Object> inputs) {
         System.out.println("\n--- INPUT FIELDS ---");
+        System.out.println("Total input elements found: " + inputs.get("total"));
         
-        try {
-            List<WebElement> allInputs = driver.findElements(By.tagName("input"));
-            System.out.println("Total input elements found: " + allInputs.size());
-            
-            for (int i = 0; i < allInputs.size() && i < 10; i++) {
-                WebElement input = allInputs.get(i);
-                System.out.println("Input " + (i+1) + ":");
-                System.out.println("  Type: " + input.getAttribute("type"));
-                System.out.println("  Name: " + input.getAttribute("name"));
-                System.out.println("  ID: " + input.getAttribute("id"));
-                System.out.println("  Placeholder: " + input.getAttribute("placeholder"));
-                System.out.println("  Class: " + input.getAttribute("class"));
-                System.out.println("  Visible: " + input.isDisplayed());
-            }
-        } catch (Exception e) {
-            System.out.println("No input fields found or error: " + e.getMessage());
+        List<Map<String, Object>> items = items(inputs);
+        for (int i = 0; i < items.size(); i++) {
+            Map<String, Object> input = items.get(i);
+            System.out.println("Input " + (i+1) + ":");
+            System.out.println("  Type: " + input.get("type"));
+            System.out.println("  Name: " + input.get("name"));
+            System.out.println("  ID: " + input.get("id"));
+            System.out.println("  Placeholder: " + input.get("placeholder"));
+            System.out.println("  Class: " + input.get("className"));
+            System.out.println("  Visible: " + input.get("visible"));
         }
     }
     
-    private static void debugButtons(WebDriver driver) {
+    private static void printButtons(Map<String, Object> buttons) {
         System.out.println("\n--- BUTTONS ---");
+        System.out.println("Total button elements found: " + buttons.get("total"));
         
-        try {
-            List<WebElement> buttons = driver.findElements(By.tagName("button"));
-            System.out.println("Total button elements found: " + buttons.size());
-            
-            for (int i = 0; i < buttons.size() && i < 10; i++) {
-                WebElement button = buttons.get(i);
-                System.out.println("Button " + (i+1) + ":");
-                System.out.println("  Text: " + button.getText());
-                System.out.println("  Type: " + button.getAttribute("type"));
-                System.out.println("  Class: " + button.getAttribute("class"));
-                System.out.println("  Visible: " + button.isDisplayed());
-            }
-        } catch (Exception e) {
-            System.out.println("No buttons found or error: " + e.getMessage());
+        List<Map<String, Object>> items = items(buttons);
+        for (int i = 0; i < items.size(); i++) {
+            Map<String, Object> button = items.get(i);
+            System.out.println("Button " + (i+1) + ":");
+            System.out.println("  Text: " + button.get("text"));
+            System.out.println("  Type: " + button.get("type"));
+            System.out.println("  Class: " + button.get("className"));
+            System.out.println("  Visible: " + button.get("visible"));
         }
     }
     
-    private static void debugForms(WebDriver driver) {
+    private static void printForms(Map<String, Object> forms) {
         System.out.println("\n--- FORMS ---");
+        System.out.println("Total form elements found: " + forms.get("total"));
         
-        try {
-            List<WebElement> forms = driver.findElements(By.tagName("form"));
-            System.out.println("Total form elements found: " + forms.size());
-            
-            for (int i = 0; i < forms.size(); i++) {
-                WebElement form = forms.get(i);
-                System.out.println("Form " + (i+1) + ":");
-                System.out.println("  Action: " + form.getAttribute("action"));
-                System.out.println("  Method: " + form.getAttribute("method"));
-                System.out.println("  Class: " + form.getAttribute("class"));
-            }
-        } catch (Exception e) {
-            System.out.println("No forms found or error: " + e.getMessage());
+        List<Map<String, Object>> items = items(forms);
+        for (int i = 0; i < items.size(); i++) {
+            Map<String, Object> form = items.get(i);
+            System.out.println("Form " + (i+1) + ":");
+            System.out.println("  Action: " + form.get("action"));
+            System.out.println("  Method: " + form.get("method"));
+            System.out.println("  Class: " + form.get("className"));
         }
     }
     
-    private static void debugPageContent(WebDriver driver) {
+    private static void printPageContent(Map<String, Object> keywords) {
         System.out.println("\n--- PAGE CONTENT ANALYSIS ---");
         
-        try {
-            String pageSource = driver.getPageSource().toLowerCase();
-            
-            String[] keywords = {"email", "password", "login", "sign in", "continue", "submit", "verification"};
-            for (String keyword : keywords) {
-                boolean found = pageSource.contains(keyword);
-                System.out.println("Contains '" + keyword + "': " + found);
-            }
-            
-            // Check for React/Vue/Angular indicators
-            String[] frameworks = {"react", "vue", "angular", "ng-", "data-reactroot"};
-            for (String framework : frameworks) {
-                boolean found = pageSource.contains(framework);
-                System.out.println("Contains '" + framework + "': " + found);
-            }
-            
-        } catch (Exception e) {
-            System.out.println("Error analyzing page content: " + e.getMessage());
+        for (String keyword : KEYWORDS) {
+            System.out.println("Contains '" + keyword + "': " + Boolean.TRUE.equals(keywords.get(keyword)));
+        }
+        for (String framework : FRAMEWORKS) {
+            System.out.println("Contains '" + framework + "': " + Boolean.TRUE.equals(keywords.get(framework)));
         }
     }
     
-    private static void debugSPAIndicators(WebDriver driver) {
+    private static void printSPAIndicators(Map<String, Object> spa) {
         System.out.println("\n--- SPA/DYNAMIC CONTENT INDICATORS ---");
-        
-        try {
-            // Check for loading indicators
-            List<WebElement> loadingElements = driver.findElements(By.xpath("//*[contains(@class, 'loading') or contains(@class, 'spinner') or contains(text(), 'Loading')]"));
-            System.out.println("Loading indicators found: " + loadingElements.size());
-            
-            // Check for div elements (common in SPAs)
-            List<WebElement> divs = driver.findElements(By.tagName("div"));
-            System.out.println("Total div elements: " + divs.size());
-            
-            // Check for script tags
-            List<WebElement> scripts = driver.findElements(By.tagName("script"));
-            System.out.println("Script tags found: " + scripts.size());
-            
-            // Check if body has specific classes
-            WebElement body = driver.findElement(By.tagName("body"));
-            System.out.println("Body class: " + body.getAttribute("class"));
-            
-        } catch (Exception e) {
-            System.out.println("Error checking SPA indicators: " + e.getMessage());
-        }
+        System.out.println("Loading indicators found: " + asInt(spa.get("loadingIndicators")));
+        System.out.println("Total div elements: " + asInt(spa.get("divs")));
+        System.out.println("Script tags found: " + asInt(spa.get("scripts")));
+        System.out.println("Body class: " + spa.get("bodyClass"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> section(Map<String, Object> snapshot, String name) {
+        Object section = snapshot.get(name);
+        return section instanceof Map ? (Map<String, Object>) section : Collections.emptyMap();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> items(Map<String, Object> section) {
+        Object items = section.get("items");
+        return items instanceof List ? (List<Map<String, Object>>) items : Collections.emptyList();
+    }
+
+    private static Object asInt(Object number) {
+        return number instanceof Number ? ((Number) number).intValue() : number;
     }
     
     /**
      * Saves page source to help with debugging.
+     * Sources are kept in the shared {@link PageSourceStore}, so identical pages are stored once.
+     *
+     * @return The file the page source was saved to, or null if it could not be saved.
      */
-    public static void savePageSource(WebDriver driver, String filename) {
+    public static File savePageSource(WebDriver driver, String filename) {
         try {
             String pageSource = driver.getPageSource();
             System.out.println("Page source length: " + pageSource.length() + " characters");
-            System.out.println("First 500 characters:");
-            System.out.println(pageSource.substring(0, Math.min(500, pageSource.length())));
+            PageSourceStore store = PageSourceStore.getInstance();
+            File file = store.getFile(store.save(pageSource, filename));
+            System.out.println("Page source " + filename + " saved to " + file);
+            return file;
         } catch (Exception e) {
-            System.out.println("Error getting page source: " + e.getMessage());
+            System.out.println("Error saving page source: " + e.getMessage());
+            return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+package com.selenium.notion.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed store for page sources saved while debugging.
+ *
+ * Each page source is gzipped to objects/&lt;sha-256&gt;.html.gz, so identical snapshots taken by
+ * different tests or runs are stored once. The source is encoded, hashed and compressed in one
+ * streaming pass into a temporary file that is then moved into place, so no second copy of the
+ * page is held in memory. Every save appends a line with the time, name and hash to index.log.
+ * When the objects exceed the size limit, the least recently saved ones are deleted.
+ */
+public class PageSourceStore {
+
+    private static PageSourceStore instance;
+
+    private final File objects;
+    private final File index;
+    private final long maxBytes;
+
+    /**
+     * Constructor for PageSourceStore.
+     *
+     * @param directory Directory the store lives in.
+     * @param maxBytes Total size of stored objects to keep.
+     */
+    public PageSourceStore(File directory, long maxBytes) {
+        this.objects = new File(directory, "objects");
+        this.index = new File(directory, "index.log");
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Gets the shared store configured from config.properties.
+     *
+     * @return The shared page source store.
+     */
+    public static synchronized PageSourceStore getInstance() {
+        if (instance == null) {
+            instance = new PageSourceStore(
+                new File(ConfigReader.getProperty("page.source.store.dir", "build/page-sources")),
+                ConfigReader.getIntProperty("page.source.store.max.mb", 200) * 1024L * 1024L);
+        }
+        return instance;
+    }
+
+    /**
+     * Saves a page source unless an identical one is already stored.
+     *
+     * @param pageSource The page source.
+     * @param name Name recorded in the index, e.g. "notion-login.html".
+     * @return The SHA-256 hash the source is stored under.
+     * @throws IOException if the source cannot be written.
+     */
+    public String save(String pageSource, String name) throws IOException {
+        Files.createDirectories(objects.toPath());
+        File temp = File.createTempFile("page-", ".tmp", objects);
+        try {
+            MessageDigest digest = newDigest();
+            try (Writer writer = new OutputStreamWriter(
+                    new DigestOutputStream(new GZIPOutputStream(Files.newOutputStream(temp.toPath()), 64 * 1024), digest),
+                    StandardCharsets.UTF_8)) {
+                writer.write(pageSource);
+            }
+
+            String hash = toHex(digest.digest());
+            File target = getFile(hash);
+            if (target.exists()) {
+                // Already stored; mark it as recently used so retention keeps it
+                target.setLastModified(System.currentTimeMillis());
+            } else {
+                // A concurrent save of the same content is harmless, both files are identical
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            appendToIndex(name, hash);
+            enforceRetention();
+            return hash;
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Gets the file a page source with the given hash is stored in.
+     *
+     * @param hash The SHA-256 hash returned by {@link #save(String, String)}.
+     * @return The gzipped page source file.
+     */
+    public File getFile(String hash) {
+        return new File(objects, hash + ".html.gz");
+    }
+
+    private synchronized void appendToIndex(String name, String hash) throws IOException {
+        String line = System.currentTimeMillis() + "\t" + name + "\t" + hash + System.lineSeparator();
+        try (OutputStream out = Files.newOutputStream(index.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write(line.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private synchronized void enforceRetention() {
+        File[] files = objects.listFiles((dir, fileName) -> fileName.endsWith(".html.gz"));
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+
+        List<File> oldestFirst = new ArrayList<>();
+        for (File file : files) {
+            oldestFirst.add(file);
+        }
+        oldestFirst.sort(Comparator.comparingLong(File::lastModified));
+        for (File file : oldestFirst) {
+            if (total <= maxBytes) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
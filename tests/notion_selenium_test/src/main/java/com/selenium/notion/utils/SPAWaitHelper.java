@@ -1,29 +1,63 @@
 package com.selenium.notion.utils;
 
-import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.ui.WebDriverWait;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Helper class for waiting on SPA (Single Page Application) elements to load.
  * Specifically designed for modern React/Vue applications like Notion.
+ *
+ * Every wait draws from a {@link WaitPolicy} budget and is capped by the current test's deadline.
  */
 public class SPAWaitHelper {
     
     private final WebDriver driver;
-    private final WebDriverWait wait;
     private final JavascriptExecutor jsExecutor;
+    private final String operation;
+    private final long timeoutMillis;
+    
+    /**
+     * Constructor for SPAWaitHelper with a named wait budget.
+     *
+     * @param driver The WebDriver instance.
+     * @param operation The {@link WaitPolicy} budget the helper's waits draw from.
+     */
+    public SPAWaitHelper(WebDriver driver, String operation) {
+        this(driver, operation, WaitPolicy.budgetMillis(operation));
+    }
     
     public SPAWaitHelper(WebDriver driver, int timeoutSeconds) {
+        this(driver, "spa", timeoutSeconds * 1000L);
+    }
+    
+    private SPAWaitHelper(WebDriver driver, String operation, long timeoutMillis) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, timeoutSeconds);
+        this.operation = operation;
+        this.timeoutMillis = timeoutMillis;
         this.jsExecutor = (JavascriptExecutor) driver;
     }
     
+    /**
+     * @return The helper's timeout, capped by what is left of the test deadline.
+     */
+    private long allowanceMillis() {
+        return WaitPolicy.allowanceMillis(operation, timeoutMillis);
+    }
+    
+    private WaitPolicy.BudgetedWait budgetedWait() {
+        return WaitPolicy.forOperation(driver, operation, timeoutMillis);
+    }
+    
     /**
      * Waits for the page to be fully loaded including JavaScript execution.
      */
@@ -31,7 +65,7 @@ public class SPAWaitHelper {
         System.out.println("Waiting for page to fully load...");
         
         // Wait for document ready state
-        wait.until(new ExpectedCondition<Boolean>() {
+        budgetedWait().until(new ExpectedCondition<Boolean>() {
             public Boolean apply(WebDriver driver) {
                 return jsExecutor.executeScript("return document.readyState").equals("complete");
             }
@@ -39,7 +73,7 @@ public class SPAWaitHelper {
         
         // Wait for jQuery if present
         try {
-            wait.until(new ExpectedCondition<Boolean>() {
+            budgetedWait().until(new ExpectedCondition<Boolean>() {
                 public Boolean apply(WebDriver driver) {
                     return (Boolean) jsExecutor.executeScript("return typeof jQuery === 'undefined' || jQuery.active === 0");
                 }
@@ -48,18 +82,136 @@ public class SPAWaitHelper {
             // jQuery not present, continue
         }
         
+        // Count requests made from here on for waitForNetworkIdle
+        installNetworkMonitor();
+        
         System.out.println("Page loading completed");
     }
     
+    /**
+     * Installs the in-browser network monitor on the current document if it is not there yet.
+     * It wraps fetch, XMLHttpRequest and WebSocket and counts requests in flight; requests
+     * started before it was installed are not seen. A full page navigation removes it.
+     */
+    public void installNetworkMonitor() {
+        try {
+            jsExecutor.executeScript(BrowserScripts.get("network-monitor.js"));
+        } catch (Exception e) {
+            System.out.println("Could not install network monitor: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Waits until at most maxInflight requests are in flight and there has been no network
+     * activity for idleMillis, within the helper's timeout.
+     *
+     * @param idleMillis How long the network must stay quiet.
+     * @param maxInflight Number of in-flight requests tolerated, e.g. for long polling.
+     * @return true if the network became idle, false on timeout.
+     */
+    public boolean waitForNetworkIdle(long idleMillis, int maxInflight) {
+        return waitForNetworkIdle(idleMillis, maxInflight, timeoutMillis);
+    }
+    
+    /**
+     * Waits until at most maxInflight requests are in flight and there has been no network
+     * activity for idleMillis. The wait runs in the browser in a single round trip and
+     * installs the network monitor first if needed.
+     *
+     * @param idleMillis How long the network must stay quiet.
+     * @param maxInflight Number of in-flight requests tolerated, e.g. for long polling.
+     * @param timeoutMillis Total time budget for the wait.
+     * @return true if the network became idle, false on timeout.
+     */
+    public boolean waitForNetworkIdle(long idleMillis, int maxInflight, long timeoutMillis) {
+        long requestedMillis = timeoutMillis;
+        timeoutMillis = WaitPolicy.allowanceMillis(operation, requestedMillis);
+        try {
+            driver.manage().timeouts().setScriptTimeout(timeoutMillis + 5000, TimeUnit.MILLISECONDS);
+            Map<?, ?> outcome = (Map<?, ?>) jsExecutor.executeAsyncScript(
+                BrowserScripts.get("network-monitor.js") + BrowserScripts.get("wait-for-network-idle.js"),
+                idleMillis, maxInflight, timeoutMillis);
+
+            boolean idle = Boolean.TRUE.equals(outcome.get("idle"));
+            System.out.println((idle ? "Network idle" : "Network still busy (" + outcome.get("inflight") + " in flight)") +
+                " after " + outcome.get("elapsed") + " ms");
+            if (!idle) {
+                WaitPolicy.recordExhausted(operation + ".network-idle", timeoutMillis, requestedMillis);
+            }
+            return idle;
+        } catch (Exception e) {
+            System.out.println("Error waiting for network idle: " + e.getMessage());
+            return false;
+        } finally {
+            driver.manage().timeouts().setScriptTimeout(DriverFactory.SCRIPT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+    
     /**
      * Waits for React components to finish loading.
+     * In the default "observer" mode (spa.wait.mode) this returns as soon as the page has
+     * rendered spa.wait.react.quiet.frames consecutive frames without DOM changes or React
+     * commits; the "poll" mode waits for React and then sleeps for 2 seconds.
      */
     public void waitForReactToLoad() {
+        if ("poll".equalsIgnoreCase(ConfigReader.getProperty("spa.wait.mode", "observer"))) {
+            waitForReactWithFixedDelay();
+            return;
+        }
+
+        int quietFrames = ConfigReader.getIntProperty("spa.wait.react.quiet.frames", 5);
+        waitForRenderQuiescence(quietFrames, timeoutMillis);
+    }
+
+    /**
+     * Waits in a single browser round trip until React has rendered and the given number of
+     * consecutive animation frames pass with no DOM mutations, followed by an idle period.
+     * React commits are also counted through the React DevTools global hook when the page
+     * exposes one.
+     *
+     * @param quietFrames Number of consecutive frames without changes required.
+     * @param timeoutMillis Total time budget for the wait.
+     * @return true if rendering went quiet, false if React was not detected or on timeout.
+     */
+    public boolean waitForRenderQuiescence(int quietFrames, long timeoutMillis) {
+        System.out.println("Waiting for React components to load...");
+        long requestedMillis = timeoutMillis;
+        timeoutMillis = WaitPolicy.allowanceMillis(operation, requestedMillis);
+
+        try {
+            driver.manage().timeouts().setScriptTimeout(timeoutMillis + 5000, TimeUnit.MILLISECONDS);
+            Map<?, ?> outcome = (Map<?, ?>) jsExecutor.executeAsyncScript(
+                BrowserScripts.get("wait-for-render-quiescence.js"), quietFrames, timeoutMillis);
+
+            boolean quiescent = "quiescent".equals(outcome.get("status"));
+            if (quiescent) {
+                System.out.println("React components loaded after " + outcome.get("elapsed") + " ms (" +
+                    outcome.get("frames") + " frames" + (Boolean.TRUE.equals(outcome.get("commitHooked")) ? ", commit hook" : "") + ")");
+            } else if (!Boolean.TRUE.equals(outcome.get("react"))) {
+                System.out.println("React not detected or timeout, continuing...");
+            } else {
+                System.out.println("React still rendering after " + outcome.get("elapsed") + " ms, continuing...");
+                WaitPolicy.recordExhausted(operation + ".render", timeoutMillis, requestedMillis);
+            }
+            return quiescent;
+        } catch (Exception e) {
+            // The async script is aborted if the page navigates while it runs
+            System.out.println("Error waiting for React components: " + e.getMessage());
+            return false;
+        } finally {
+            driver.manage().timeouts().setScriptTimeout(DriverFactory.SCRIPT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Waits for React to be detected, then sleeps for 2 seconds to let components render.
+     */
+    private void waitForReactWithFixedDelay() {
         System.out.println("Waiting for React components to load...");
         
         try {
             // Wait for React to be available
-            wait.until(new ExpectedCondition<Boolean>() {
+            budgetedWait().until(new ExpectedCondition<Boolean>() {
                 public Boolean apply(WebDriver driver) {
                     return (Boolean) jsExecutor.executeScript(
                         "return typeof React !== 'undefined' || " +
@@ -81,13 +233,68 @@ public class SPAWaitHelper {
     
     /**
      * Waits for dynamic form elements to appear in a modern SPA.
-     * Uses progressive waiting with increasing delays.
+     * In the default "observer" mode (spa.wait.mode) this is a single in-browser wait;
+     * the "poll" mode checks from the test side every 2 seconds.
      */
     public void waitForDynamicContent(int maxWaitSeconds) {
+        if ("poll".equalsIgnoreCase(ConfigReader.getProperty("spa.wait.mode", "observer"))) {
+            pollForDynamicContent(maxWaitSeconds);
+            return;
+        }
+
+        long settleMillis = ConfigReader.getIntProperty("spa.wait.settle.millis", 500);
+        if (!waitForDynamicContent("input, button, form", settleMillis, maxWaitSeconds * 1000L)) {
+            System.out.println("Dynamic content not detected within " + maxWaitSeconds + " seconds");
+        }
+    }
+
+    /**
+     * Waits in a single browser round trip until an element matching the selectors exists
+     * and the DOM has had no mutations for the settle window. A MutationObserver restarts
+     * the settle window on every change, so the wait ends as soon as the page is quiet.
+     *
+     * @param cssSelectors CSS selectors of the elements to wait for.
+     * @param settleMillis How long the DOM must stay unchanged after the elements appear.
+     * @param timeoutMillis Total time budget for the wait.
+     * @return true if the elements appeared and the DOM settled, false on timeout.
+     */
+    public boolean waitForDynamicContent(String cssSelectors, long settleMillis, long timeoutMillis) {
+        System.out.println("Waiting for dynamic content to load...");
+        long requestedMillis = timeoutMillis;
+        timeoutMillis = WaitPolicy.allowanceMillis(operation, requestedMillis);
+
+        try {
+            // Give the browser-side timeout room to fire before the WebDriver script timeout
+            driver.manage().timeouts().setScriptTimeout(timeoutMillis + 5000, TimeUnit.MILLISECONDS);
+            Object result = jsExecutor.executeAsyncScript(
+                BrowserScripts.get("wait-for-dynamic-content.js"), cssSelectors, settleMillis, timeoutMillis);
+
+            Map<?, ?> outcome = (Map<?, ?>) result;
+            boolean settled = "settled".equals(outcome.get("status"));
+            System.out.println((settled ? "Dynamic form elements detected and DOM settled" : "Dynamic content wait timed out") +
+                " after " + outcome.get("elapsed") + " ms");
+            if (!settled) {
+                WaitPolicy.recordExhausted(operation + ".dynamic-content", timeoutMillis, requestedMillis);
+            }
+            return settled;
+        } catch (Exception e) {
+            // The async script is aborted if the page navigates while it runs
+            System.out.println("Error waiting for dynamic content: " + e.getMessage());
+            return false;
+        } finally {
+            driver.manage().timeouts().setScriptTimeout(DriverFactory.SCRIPT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Polls for dynamic form elements every 2 seconds.
+     */
+    private void pollForDynamicContent(int maxWaitSeconds) {
         System.out.println("Waiting for dynamic content to load...");
         
         int attempts = 0;
-        int maxAttempts = maxWaitSeconds / 2; // Check every 2 seconds
+        long allowedMillis = WaitPolicy.allowanceMillis(operation, maxWaitSeconds * 1000L);
+        int maxAttempts = (int) (allowedMillis / 2000); // Check every 2 seconds
         
         while (attempts < maxAttempts) {
             try {
@@ -113,8 +320,7 @@ public class SPAWaitHelper {
                 
                 // Wait for network activity to settle
                 Boolean networkIdle = (Boolean) jsExecutor.executeScript(
-                    "return typeof window.fetch === 'undefined' || " +
-                    "window.performance.getEntriesByType('resource').filter(r => r.responseEnd === 0).length === 0"
+                    BrowserScripts.get("network-monitor.js") + "return window.__networkMonitor.inflight === 0;"
                 );
                 
                 if (!networkIdle) {
@@ -141,42 +347,133 @@ public class SPAWaitHelper {
     
     /**
      * Waits for a specific element using multiple strategies.
+     * All strategies are evaluated together in the browser and the pass is repeated until
+     * one of them has a visible match or the helper's timeout runs out, so the wait never
+     * takes longer than the timeout (or the test deadline) regardless of how many strategies are given.
+     * Strategies are tried in the order learned by {@link LocatorStrategyCache} for this page.
      */
     public WebElement waitForElementWithMultipleStrategies(String[] xpaths, String description) {
         System.out.println("Searching for " + description + " using multiple strategies...");
         
-        // First, wait for page to be stable
-        waitForPageToLoad();
-        waitForReactToLoad();
+        long start = System.currentTimeMillis();
+        long allowedMillis = allowanceMillis();
+        long deadline = start + allowedMillis;
+        int passes = 0;
+        String url = driver.getCurrentUrl();
+        String[] ordered = LocatorStrategyCache.getInstance().order(url, description, xpaths);
         
-        // Try each xpath strategy
-        for (int attempt = 0; attempt < 3; attempt++) {
-            System.out.println("Attempt " + (attempt + 1) + " to find " + description);
-            
-            for (String xpath : xpaths) {
-                try {
-                    WebElement element = wait.until(ExpectedConditions.presenceOfElementLocated(By.xpath(xpath)));
-                    if (element.isDisplayed()) {
-                        System.out.println("Found " + description + " with xpath: " + xpath);
-                        return element;
-                    }
-                } catch (Exception e) {
-                    // Continue to next strategy
-                }
+        while (true) {
+            passes++;
+            LocatorMatch match = findFirstVisible(ordered);
+            if (match != null) {
+                long elapsed = System.currentTimeMillis() - start;
+                LocatorStrategyCache.getInstance().recordSuccess(url, description, ordered, match.getIndex(), elapsed);
+                System.out.println("Found " + description + " with xpath: " + match.getXpath() +
+                    " (probe " + (match.getIndex() + 1) + " of " + ordered.length + ", " +
+                    elapsed + " ms, " + passes + " passes)");
+                return match.getElement();
             }
             
-            // Wait a bit before next attempt
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
             try {
-                Thread.sleep(2000);
+                Thread.sleep(Math.min(250, remaining));
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
+                break;
             }
         }
         
         System.out.println("Could not find " + description + " with any strategy");
+        WaitPolicy.recordExhausted(operation + ": " + description, allowedMillis, timeoutMillis);
+        return null;
+    }
+    
+    /**
+     * Evaluates all XPath strategies in a single browser call, in the order learned for
+     * this page and element, and records which strategy won.
+     *
+     * @param xpaths The candidate XPaths in default order of preference.
+     * @param description The description of the element, used as the learning key.
+     * @return The first candidate with a visible match, or null if none matched.
+     */
+    public LocatorMatch findFirstVisible(String[] xpaths, String description) {
+        long start = System.currentTimeMillis();
+        String url = driver.getCurrentUrl();
+        String[] ordered = LocatorStrategyCache.getInstance().order(url, description, xpaths);
+        LocatorMatch match = findFirstVisible(ordered);
+        if (match != null) {
+            LocatorStrategyCache.getInstance().recordSuccess(url, description, ordered, match.getIndex(),
+                System.currentTimeMillis() - start);
+        }
+        return match;
+    }
+    
+    /**
+     * Evaluates all XPath strategies in a single browser call.
+     *
+     * @param xpaths The candidate XPaths in order of preference.
+     * @return The first candidate with a visible match, or null if none matched.
+     */
+    public LocatorMatch findFirstVisible(String[] xpaths) {
+        try {
+            Object result = jsExecutor.executeScript(BrowserScripts.get("find-first-visible.js"), Arrays.asList(xpaths));
+            if (result instanceof Map) {
+                Map<?, ?> match = (Map<?, ?>) result;
+                int index = ((Number) match.get("index")).intValue();
+                return new LocatorMatch((WebElement) match.get("element"), index, xpaths[index]);
+            }
+        } catch (Exception e) {
+            System.out.println("Error evaluating locator strategies: " + e.getMessage());
+        }
         return null;
     }
     
+    /**
+     * Evaluates several groups of XPath strategies in a single browser call, each group in the
+     * order learned for this page and its description. Visibility and clickability (enabled,
+     * accepting pointer events and not covered by another element) are computed in the
+     * browser, and a clickable match is preferred over a merely visible one.
+     *
+     * @param xpathGroups The candidate XPaths of each group in default order of preference.
+     * @param descriptions The description of each group, used as the learning key.
+     * @return One match per group, null where nothing in the group is visible.
+     */
+    public LocatorMatch[] probeLocatorGroups(String[][] xpathGroups, String[] descriptions) {
+        long start = System.currentTimeMillis();
+        LocatorMatch[] matches = new LocatorMatch[xpathGroups.length];
+        try {
+            String url = driver.getCurrentUrl();
+            String[][] ordered = new String[xpathGroups.length][];
+            Object[] arguments = new Object[xpathGroups.length];
+            for (int i = 0; i < xpathGroups.length; i++) {
+                ordered[i] = LocatorStrategyCache.getInstance().order(url, descriptions[i], xpathGroups[i]);
+                arguments[i] = Arrays.asList(ordered[i]);
+            }
+
+            List<?> results = (List<?>) jsExecutor.executeScript(
+                BrowserScripts.get("probe-locator-groups.js"), Arrays.asList(arguments));
+            long elapsed = System.currentTimeMillis() - start;
+            for (int i = 0; i < matches.length; i++) {
+                if (!(results.get(i) instanceof Map)) {
+                    continue;
+                }
+                Map<?, ?> match = (Map<?, ?>) results.get(i);
+                int index = ((Number) match.get("index")).intValue();
+                boolean clickable = Boolean.TRUE.equals(match.get("clickable"));
+                matches[i] = new LocatorMatch((WebElement) match.get("element"), index, ordered[i][index], clickable);
+                if (clickable) {
+                    LocatorStrategyCache.getInstance().recordSuccess(url, descriptions[i], ordered[i], index, elapsed);
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("Error probing locator groups: " + e.getMessage());
+        }
+        return matches;
+    }
+    
     /**
      * Waits for any input field to appear on the page.
      */
@@ -224,13 +521,20 @@ public class SPAWaitHelper {
     public boolean waitForUrlToChange(String currentUrl, int timeoutSeconds) {
         System.out.println("Waiting for URL to change from: " + currentUrl);
         
+        long requestedMillis = timeoutSeconds * 1000L;
+        long allowedMillis = WaitPolicy.allowanceMillis("navigation", requestedMillis);
         try {
-            WebDriverWait urlWait = new WebDriverWait(driver, timeoutSeconds);
+            WebDriverWait urlWait = new WebDriverWait(driver, 0);
+            urlWait.withTimeout(Duration.ofMillis(allowedMillis));
             return urlWait.until(new ExpectedCondition<Boolean>() {
                 public Boolean apply(WebDriver driver) {
                     return !driver.getCurrentUrl().equals(currentUrl);
                 }
             });
+        } catch (TimeoutException e) {
+            WaitPolicy.recordExhausted("navigation: url change", allowedMillis, requestedMillis);
+            System.out.println("URL did not change within timeout");
+            return false;
         } catch (Exception e) {
             System.out.println("URL did not change within timeout");
             return false;
@@ -258,4 +562,44 @@ public class SPAWaitHelper {
             return false;
         }
     }
+    
+    /**
+     * The element found by {@link #findFirstVisible(String[])} and the strategy that found it.
+     */
+    public static class LocatorMatch {
+        private final WebElement element;
+        private final int index;
+        private final String xpath;
+        private final boolean clickable;
+        
+        public LocatorMatch(WebElement element, int index, String xpath) {
+            this(element, index, xpath, true);
+        }
+        
+        public LocatorMatch(WebElement element, int index, String xpath, boolean clickable) {
+            this.element = element;
+            this.index = index;
+            this.xpath = xpath;
+            this.clickable = clickable;
+        }
+        
+        public WebElement getElement() {
+            return element;
+        }
+        
+        public int getIndex() {
+            return index;
+        }
+        
+        public String getXpath() {
+            return xpath;
+        }
+        
+        /**
+         * @return false if the element is visible but disabled or covered by another element.
+         */
+        public boolean isClickable() {
+            return clickable;
+        }
+    }
 }
\ No newline at end of file
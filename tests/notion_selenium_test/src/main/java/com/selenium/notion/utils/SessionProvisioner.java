@@ -0,0 +1,190 @@
+package com.selenium.notion.utils;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Creates WebDriver sessions on background threads ahead of demand, so that a test
+ * leasing a new session finds one already started instead of waiting for the grid.
+ * The look-ahead depth bounds how many sessions are being created or waiting at once.
+ *
+ * A test waits at most the take timeout for a session that is still starting. A session that
+ * finishes starting after it was given up on, or after shutdown, is closed when it arrives.
+ */
+public class SessionProvisioner {
+
+    private final Supplier<WebDriver> factory;
+    private final int depth;
+    private final long takeTimeoutMillis;
+    private final ExecutorService executor;
+    private final LinkedBlockingDeque<CompletableFuture<ProvisionedSession>> pending = new LinkedBlockingDeque<>();
+
+    private final AtomicInteger provisioned = new AtomicInteger();
+    private final AtomicInteger taken = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicLong hiddenMillis = new AtomicLong();
+    private final AtomicLong waitedMillis = new AtomicLong();
+
+    private volatile boolean shutDown;
+
+    /**
+     * Constructor for SessionProvisioner.
+     *
+     * @param factory Creates a new session on a background thread.
+     * @param depth Maximum number of sessions created ahead of demand.
+     * @param takeTimeoutSeconds Maximum time {@link #take()} waits for a session still starting.
+     */
+    public SessionProvisioner(Supplier<WebDriver> factory, int depth, int takeTimeoutSeconds) {
+        this.factory = factory;
+        this.depth = Math.max(1, depth);
+        this.takeTimeoutMillis = Math.max(1, takeTimeoutSeconds) * 1000L;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.depth, runnable -> {
+            Thread thread = new Thread(runnable, "session-provisioner-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts creating sessions in the background until the look-ahead depth is reached.
+     */
+    public synchronized void replenish() {
+        while (!shutDown && pending.size() < depth) {
+            pending.offerLast(CompletableFuture.supplyAsync(this::provision, executor));
+        }
+    }
+
+    /**
+     * Takes the oldest pre-warmed session, waiting up to the take timeout for it to finish starting.
+     *
+     * @return The provisioned session, or null if none is pending or its creation failed or timed out.
+     */
+    public ProvisionedSession take() {
+        CompletableFuture<ProvisionedSession> future = pending.pollFirst();
+        if (future == null) {
+            return null;
+        }
+
+        long waitStart = System.currentTimeMillis();
+        try {
+            ProvisionedSession session = future.get(takeTimeoutMillis, TimeUnit.MILLISECONDS);
+            long waited = System.currentTimeMillis() - waitStart;
+            taken.incrementAndGet();
+            waitedMillis.addAndGet(waited);
+            hiddenMillis.addAndGet(Math.max(0, session.getCreationMillis() - waited));
+            System.out.println("Using pre-warmed WebDriver session (created in " + session.getCreationMillis() +
+                " ms, waited " + waited + " ms)");
+            return session;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | CancellationException e) {
+            failures.incrementAndGet();
+            System.out.println("Pre-warmed WebDriver session could not be created: " + e.getMessage());
+            return null;
+        } catch (TimeoutException e) {
+            failures.incrementAndGet();
+            quitWhenReady(future);
+            System.out.println("Pre-warmed WebDriver session did not start within " + takeTimeoutMillis + " ms");
+            return null;
+        }
+    }
+
+    /**
+     * Stops provisioning, closes sessions that were created but never taken and prints statistics.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            shutDown = true;
+        }
+
+        List<CompletableFuture<ProvisionedSession>> remaining = new ArrayList<>();
+        pending.drainTo(remaining);
+        for (CompletableFuture<ProvisionedSession> future : remaining) {
+            quitWhenReady(future);
+        }
+        executor.shutdownNow();
+        System.out.println(getStatistics());
+    }
+
+    /**
+     * Gets the session-creation time that overlapped with running tests.
+     *
+     * @return The hidden setup latency in milliseconds.
+     */
+    public long getHiddenMillis() {
+        return hiddenMillis.get();
+    }
+
+    /**
+     * Builds a printable summary of the provisioning counters.
+     *
+     * @return The statistics summary.
+     */
+    public String getStatistics() {
+        return "Session pre-warming statistics:" +
+            " depth=" + depth +
+            ", provisioned=" + provisioned.get() +
+            ", taken=" + taken.get() +
+            ", failures=" + failures.get() +
+            ", hiddenSetupMs=" + hiddenMillis.get() +
+            ", waitedMs=" + waitedMillis.get();
+    }
+
+    /**
+     * Closes a session nobody will take, now if it has started or otherwise once it does.
+     *
+     * @param future The abandoned session.
+     */
+    private void quitWhenReady(CompletableFuture<ProvisionedSession> future) {
+        future.thenAccept(session -> {
+            try {
+                session.getDriver().quit();
+            } catch (Exception e) {
+                // Session is already gone
+            }
+        });
+    }
+
+    private ProvisionedSession provision() {
+        long start = System.currentTimeMillis();
+        WebDriver driver = factory.get();
+        provisioned.incrementAndGet();
+        return new ProvisionedSession(driver, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * A session created in the background together with the time it took to create.
+     */
+    public static class ProvisionedSession {
+        private final WebDriver driver;
+        private final long creationMillis;
+
+        private ProvisionedSession(WebDriver driver, long creationMillis) {
+            this.driver = driver;
+            this.creationMillis = creationMillis;
+        }
+
+        public WebDriver getDriver() {
+            return driver;
+        }
+
+        public long getCreationMillis() {
+            return creationMillis;
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package com.selenium.notion.utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.json.Json;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the authenticated browser state of a test account between tests and runs, so only
+ * one test has to go through the email verification login.
+ *
+ * After a successful login {@link #save(WebDriver, String)} captures the cookies plus the
+ * localStorage, sessionStorage and IndexedDB contents of the site and writes them, encrypted
+ * with AES-GCM, to one file per account and base URL under session.vault.dir. Later tests call
+ * {@link #ensureLoggedIn(WebDriver, String, LoginRoutine)}, which injects the snapshot into
+ * their session and checks that the site accepts it: session.vault.check.path is opened and
+ * must show session.vault.check.xpath rather than redirect to the login page.
+ *
+ * A snapshot older than session.vault.max.age.minutes, or whose authentication cookies
+ * (session.vault.auth.cookies) have expired, is discarded without being tried. A snapshot the
+ * site rejects is deleted, the account logs in again and the fresh state is saved.
+ *
+ * The encryption key is derived from session.vault.passphrase (pass it with -D rather than in
+ * config.properties) or, when none is set, from a random key file created next to the snapshots.
+ */
+public class SessionVault {
+
+    private static final byte[] MAGIC = "NSV1".getBytes(StandardCharsets.US_ASCII);
+    private static final int SALT_BYTES = 16;
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final int KEY_BITS = 256;
+    private static final int KEY_ITERATIONS = 120000;
+
+    // IndexedDB records captured per object store, and the time allowed to capture or restore
+    private static final int MAX_RECORDS_PER_STORE = 1000;
+    private static final long SCRIPT_TIMEOUT_MILLIS = 10000;
+
+    private static SessionVault instance;
+
+    private final File directory;
+    private final boolean enabled;
+    private final long maxAgeMillis;
+    private final List<String> authCookies;
+    private final String checkPath;
+    private final String checkXpath;
+    private final Json json = new Json();
+    private final SecureRandom random = new SecureRandom();
+    private char[] secret;
+
+    private final AtomicInteger saved = new AtomicInteger();
+    private final AtomicInteger restored = new AtomicInteger();
+    private final AtomicInteger expired = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger logins = new AtomicInteger();
+
+    /**
+     * Constructor for SessionVault.
+     *
+     * @param directory Directory the encrypted snapshots and the key file are stored in.
+     * @param enabled Whether snapshots are saved and restored at all.
+     * @param maxAgeMinutes Snapshots older than this are not restored.
+     * @param authCookies Names of the cookies that carry the login; an expired one invalidates the snapshot.
+     * @param checkPath Path opened to check whether the site accepts the session.
+     * @param checkXpath XPath of an element only shown to logged-in users.
+     */
+    public SessionVault(File directory, boolean enabled, int maxAgeMinutes, List<String> authCookies,
+                        String checkPath, String checkXpath) {
+        this.directory = directory;
+        this.enabled = enabled;
+        this.maxAgeMillis = maxAgeMinutes * 60 * 1000L;
+        this.authCookies = authCookies;
+        this.checkPath = checkPath;
+        this.checkXpath = checkXpath;
+    }
+
+    /**
+     * Gets the shared vault configured from config.properties.
+     *
+     * @return The shared session vault.
+     */
+    public static synchronized SessionVault getInstance() {
+        if (instance == null) {
+            instance = new SessionVault(
+                new File(ConfigReader.getProperty("session.vault.dir", "build/session-vault")),
+                Boolean.parseBoolean(ConfigReader.getProperty("session.vault.enabled", "true")),
+                ConfigReader.getIntProperty("session.vault.max.age.minutes", 720),
+                ConfigReader.getListProperty("session.vault.auth.cookies"),
+                ConfigReader.getProperty("session.vault.check.path", "/workspace"),
+                ConfigReader.getProperty("session.vault.check.xpath", "//button[contains(@aria-label, 'profile')]"));
+        }
+        return instance;
+    }
+
+    /**
+     * Makes sure a session is logged in as an account: keeps it if it already is, otherwise
+     * restores the saved snapshot, and if there is none or the site rejects it, logs in with
+     * the given routine and saves the new state.
+     *
+     * @param driver The WebDriver session.
+     * @param account The account the session should be logged in as.
+     * @param login Logs the session in from scratch, or null if that is not possible.
+     * @return true if the session is logged in, false otherwise.
+     * @throws Exception if the login routine fails.
+     */
+    public boolean ensureLoggedIn(WebDriver driver, String account, LoginRoutine login) throws Exception {
+        if (appearsLoggedIn(driver)) {
+            return true;
+        }
+        if (restore(driver, account)) {
+            return true;
+        }
+        if (login == null) {
+            return false;
+        }
+
+        logins.incrementAndGet();
+        System.out.println("Logging in " + account + " to refresh the saved session");
+        if (!login.logIn(driver)) {
+            return false;
+        }
+        save(driver, account);
+        return true;
+    }
+
+    /**
+     * Captures the session's cookies and client-side storage and saves them for an account.
+     * The session must be on a page of the site, e.g. right after logging in.
+     *
+     * @param driver The WebDriver session.
+     * @param account The account the session is logged in as.
+     */
+    public void save(WebDriver driver, String account) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<Map<String, Object>> cookies = new ArrayList<>();
+            for (Cookie cookie : driver.manage().getCookies()) {
+                cookies.add(toMap(cookie));
+            }
+
+            Object storage;
+            driver.manage().timeouts().setScriptTimeout(SCRIPT_TIMEOUT_MILLIS + 5000, TimeUnit.MILLISECONDS);
+            try {
+                storage = ((JavascriptExecutor) driver).executeAsyncScript(
+                    BrowserScripts.get("capture-session-state.js"), MAX_RECORDS_PER_STORE, SCRIPT_TIMEOUT_MILLIS);
+            } finally {
+                driver.manage().timeouts().setScriptTimeout(DriverFactory.SCRIPT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+
+            Map<String, Object> snapshot = new HashMap<>();
+            snapshot.put("account", account);
+            snapshot.put("baseUrl", ConfigReader.getBaseUrl());
+            snapshot.put("capturedAt", System.currentTimeMillis());
+            snapshot.put("cookies", cookies);
+            snapshot.put("storage", storage);
+            write(fileFor(account), encrypt(json.toJson(snapshot).getBytes(StandardCharsets.UTF_8)));
+            saved.incrementAndGet();
+
+            Map<?, ?> state = (Map<?, ?>) storage;
+            System.out.println("Saved session of " + account + ": " + cookies.size() + " cookies, " +
+                ((Map<?, ?>) state.get("localStorage")).size() + " localStorage items, " +
+                ((List<?>) state.get("indexedDB")).size() + " IndexedDB databases" +
+                (Boolean.TRUE.equals(state.get("complete")) ? "" : " (incomplete)"));
+        } catch (Exception e) {
+            System.out.println("Could not save session of " + account + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Injects the saved snapshot of an account into a session and checks that the site
+     * accepts it. Expired and rejected snapshots are deleted.
+     *
+     * @param driver The WebDriver session.
+     * @param account The account to restore.
+     * @return true if the session is now logged in, false if there was no usable snapshot.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean restore(WebDriver driver, String account) {
+        if (!enabled) {
+            return false;
+        }
+        Map<String, Object> snapshot = read(account);
+        if (snapshot == null) {
+            return false;
+        }
+        if (isExpired(snapshot)) {
+            expired.incrementAndGet();
+            System.out.println("Saved session of " + account + " has expired");
+            invalidate(account);
+            return false;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            // Cookies and storage can only be set for the origin the browser is on
+            driver.get(ConfigReader.getBaseUrl());
+            driver.manage().deleteAllCookies();
+            for (Map<String, Object> cookie : (List<Map<String, Object>>) snapshot.get("cookies")) {
+                try {
+                    driver.manage().addCookie(toCookie(cookie));
+                } catch (Exception e) {
+                    System.out.println("Could not restore cookie " + cookie.get("name") + ": " + e.getMessage());
+                }
+            }
+
+            driver.manage().timeouts().setScriptTimeout(SCRIPT_TIMEOUT_MILLIS + 5000, TimeUnit.MILLISECONDS);
+            try {
+                ((JavascriptExecutor) driver).executeAsyncScript(
+                    BrowserScripts.get("restore-session-state.js"), snapshot.get("storage"), SCRIPT_TIMEOUT_MILLIS);
+            } finally {
+                driver.manage().timeouts().setScriptTimeout(DriverFactory.SCRIPT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+        } catch (Exception e) {
+            System.out.println("Could not restore session of " + account + ": " + e.getMessage());
+            return false;
+        }
+
+        if (isAuthenticated(driver)) {
+            restored.incrementAndGet();
+            System.out.println("Restored session of " + account + " in " + (System.currentTimeMillis() - start) + " ms");
+            return true;
+        }
+        rejected.incrementAndGet();
+        System.out.println("Saved session of " + account + " was rejected by the site");
+        invalidate(account);
+        driver.manage().deleteAllCookies();
+        return false;
+    }
+
+    /**
+     * Deletes the saved snapshot of an account, e.g. after logging it out.
+     *
+     * @param account The account.
+     */
+    public synchronized void invalidate(String account) {
+        File file = fileFor(account);
+        if (file.exists() && !file.delete()) {
+            System.out.println("Could not delete saved session " + file);
+        }
+    }
+
+    /**
+     * Opens the check page and waits until it either shows the logged-in element or
+     * redirects to the login page.
+     *
+     * @param driver The WebDriver session.
+     * @return true if the site treats the session as logged in, false otherwise.
+     */
+    public boolean isAuthenticated(WebDriver driver) {
+        driver.get(ConfigReader.getBaseUrl() + checkPath);
+        String loginPath = ConfigReader.getProperty("login.path", "/login");
+        try {
+            String outcome = WaitPolicy.forOperation(driver, "navigation").until(d -> {
+                if (d.getCurrentUrl().contains(loginPath)) {
+                    return "login";
+                }
+                for (WebElement element : d.findElements(By.xpath(checkXpath))) {
+                    if (element.isDisplayed()) {
+                        return "authenticated";
+                    }
+                }
+                return null;
+            });
+            return "authenticated".equals(outcome);
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets a summary of how the saved sessions were used.
+     *
+     * @return The session vault statistics.
+     */
+    public String getStatistics() {
+        return "Session vault statistics: saved=" + saved.get() + ", restored=" + restored.get() +
+            ", expired=" + expired.get() + ", rejected=" + rejected.get() + ", logins=" + logins.get();
+    }
+
+    /**
+     * Checks without navigating whether a session is still on an authenticated page of the
+     * site, e.g. when a test continues in the session of the test that logged in.
+     */
+    private boolean appearsLoggedIn(WebDriver driver) {
+        String url = driver.getCurrentUrl();
+        if (url == null || !url.startsWith(ConfigReader.getBaseUrl())
+                || url.contains(ConfigReader.getProperty("login.path", "/login"))) {
+            return false;
+        }
+        for (Cookie cookie : driver.manage().getCookies()) {
+            if (authCookies.contains(cookie.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isExpired(Map<String, Object> snapshot) {
+        long now = System.currentTimeMillis();
+        if (now - ((Number) snapshot.get("capturedAt")).longValue() > maxAgeMillis) {
+            return true;
+        }
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> cookies = (List<Map<String, Object>>) snapshot.get("cookies");
+        for (Map<String, Object> cookie : cookies) {
+            Object expiry = cookie.get("expiry");
+            if (authCookies.contains(cookie.get("name")) && expiry != null && ((Number) expiry).longValue() <= now) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized Map<String, Object> read(String account) {
+        File file = fileFor(account);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            byte[] plain = decrypt(Files.readAllBytes(file.toPath()));
+            return json.toType(new String(plain, StandardCharsets.UTF_8), Json.MAP_TYPE);
+        } catch (Exception e) {
+            // Written with another key, truncated or tampered with
+            System.out.println("Ignoring unreadable saved session " + file + ": " + e.getMessage());
+            invalidate(account);
+            return null;
+        }
+    }
+
+    private synchronized void write(File file, byte[] data) throws IOException {
+        Files.createDirectories(directory.toPath());
+        File temp = File.createTempFile("session-", ".tmp", directory);
+        try {
+            Files.write(temp.toPath(), data);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temp.delete();
+        }
+    }
+
+    private File fileFor(String account) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((account.toLowerCase() + "|" + ConfigReader.getBaseUrl()).getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                name.append(String.format("%02x", hash[i]));
+            }
+            return new File(directory, name + ".session");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Encrypts data with a key derived from the vault secret and a fresh salt.
+     *
+     * @param plain The data to encrypt.
+     * @return The vault file contents: magic, salt, IV and the sealed data.
+     * @throws GeneralSecurityException if the cipher is unavailable.
+     * @throws IOException if the key file cannot be created or read.
+     */
+    byte[] encrypt(byte[] plain) throws GeneralSecurityException, IOException {
+        byte[] salt = new byte[SALT_BYTES];
+        byte[] iv = new byte[IV_BYTES];
+        random.nextBytes(salt);
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, deriveKey(salt), new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(MAGIC);
+        byte[] sealed = cipher.doFinal(plain);
+        return ByteBuffer.allocate(MAGIC.length + SALT_BYTES + IV_BYTES + sealed.length)
+            .put(MAGIC).put(salt).put(iv).put(sealed).array();
+    }
+
+    /**
+     * Decrypts data written by {@link #encrypt(byte[])}.
+     *
+     * @param data The vault file contents.
+     * @return The decrypted data.
+     * @throws GeneralSecurityException if the data was written with another key or tampered with.
+     * @throws IOException if the data is not a vault file or the key file cannot be read.
+     */
+    byte[] decrypt(byte[] data) throws GeneralSecurityException, IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        byte[] magic = new byte[MAGIC.length];
+        byte[] salt = new byte[SALT_BYTES];
+        byte[] iv = new byte[IV_BYTES];
+        if (data.length < magic.length + SALT_BYTES + IV_BYTES) {
+            throw new IOException("file too short");
+        }
+        buffer.get(magic).get(salt).get(iv);
+        if (!MessageDigest.isEqual(magic, MAGIC)) {
+            throw new IOException("not a session vault file");
+        }
+        byte[] sealed = new byte[buffer.remaining()];
+        buffer.get(sealed);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, deriveKey(salt), new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(MAGIC);
+        return cipher.doFinal(sealed);
+    }
+
+    private SecretKeySpec deriveKey(byte[] salt) throws GeneralSecurityException, IOException {
+        PBEKeySpec spec = new PBEKeySpec(secret(), salt, KEY_ITERATIONS, KEY_BITS);
+        try {
+            byte[] key = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+            return new SecretKeySpec(key, "AES");
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private synchronized char[] secret() throws IOException {
+        if (secret != null) {
+            return secret;
+        }
+        String passphrase = ConfigReader.getProperty("session.vault.passphrase", null);
+        if (passphrase != null) {
+            secret = passphrase.toCharArray();
+            return secret;
+        }
+
+        File keyFile = new File(directory, "vault.key");
+        System.out.println("No session.vault.passphrase set, encrypting saved sessions with " + keyFile);
+        if (!keyFile.exists()) {
+            Files.createDirectories(directory.toPath());
+            byte[] key = new byte[32];
+            random.nextBytes(key);
+            try {
+                Files.createFile(keyFile.toPath(), PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+            } catch (UnsupportedOperationException e) {
+                Files.createFile(keyFile.toPath());
+            }
+            Files.write(keyFile.toPath(), Base64.getEncoder().encode(key));
+        }
+        secret = new String(Files.readAllBytes(keyFile.toPath()), StandardCharsets.US_ASCII).trim().toCharArray();
+        return secret;
+    }
+
+    private static Map<String, Object> toMap(Cookie cookie) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("name", cookie.getName());
+        map.put("value", cookie.getValue());
+        map.put("domain", cookie.getDomain());
+        map.put("path", cookie.getPath());
+        map.put("expiry", cookie.getExpiry() == null ? null : cookie.getExpiry().getTime());
+        map.put("secure", cookie.isSecure());
+        map.put("httpOnly", cookie.isHttpOnly());
+        return map;
+    }
+
+    private static Cookie toCookie(Map<String, Object> map) {
+        Object expiry = map.get("expiry");
+        return new Cookie((String) map.get("name"), (String) map.get("value"), (String) map.get("domain"),
+            (String) map.get("path"), expiry == null ? null : new Date(((Number) expiry).longValue()),
+            Boolean.TRUE.equals(map.get("secure")), Boolean.TRUE.equals(map.get("httpOnly")));
+    }
+
+    /**
+     * Logs a session in from scratch when no saved session can be used.
+     */
+    public interface LoginRoutine {
+        /**
+         * Logs the session in. On success the session is left on a page of the site.
+         *
+         * @param driver The WebDriver session.
+         * @return true if the login succeeded, false otherwise.
+         * @throws Exception if the login fails unexpectedly.
+         */
+        boolean logIn(WebDriver driver) throws Exception;
+    }
+}
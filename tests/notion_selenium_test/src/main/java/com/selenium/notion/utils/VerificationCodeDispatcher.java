@@ -0,0 +1,393 @@
+package com.selenium.notion.utils;
+
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.internet.InternetAddress;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-lived watcher that serves the verification codes of any number of concurrent logins
+ * from one IMAP connection to a shared mailbox.
+ *
+ * A login registers with {@link #expectCode(String, long)} when it submits its email address
+ * and gets a future for its code. Each incoming Notion code email is handed to one waiting
+ * login: a waiter for the exact recipient address (e.g. a plus-address such as
+ * user+run42@gmail.com) is preferred, otherwise the code goes to the longest waiting login for
+ * the same base address whose request is not newer than the email. Codes that arrive before
+ * anyone asks for them are kept for email.dispatch.unclaimed.seconds. When a resend leaves
+ * several codes for one login, the newest one is handed out and the older ones are dropped.
+ *
+ * Emails received before both the oldest waiting request and the retention window can never
+ * be handed out, so their bodies are not downloaded; the received date comes with the
+ * prefetched envelope.
+ *
+ * The watcher thread opens the mailbox on the first request, waits in IMAP IDLE between
+ * scans and reconnects after connection failures.
+ */
+public class VerificationCodeDispatcher {
+
+    private static final Map<String, VerificationCodeDispatcher> SHARED = new HashMap<>();
+
+    // IDLE is re-issued periodically so servers do not drop the connection as inactive
+    private static final long IDLE_REFRESH_MILLIS = 5 * 60 * 1000L;
+    private static final long RECONNECT_DELAY_MILLIS = 2000;
+
+    private final ImapInbox inbox;
+    private final VerificationCodeExtractor codeExtractor = VerificationCodeExtractor.fromConfig();
+    private final long clockSkewMillis;
+    private final long unclaimedRetentionMillis;
+
+    private final Object lock = new Object();
+    private final List<Waiter> waiters = new ArrayList<>();
+    private final List<Delivery> unclaimed = new ArrayList<>();
+    private Thread watcher;
+    private volatile boolean running;
+
+    private final AtomicInteger requested = new AtomicInteger();
+    private final AtomicInteger delivered = new AtomicInteger();
+    private final AtomicInteger expiredUnclaimed = new AtomicInteger();
+    private final AtomicInteger skippedOld = new AtomicInteger();
+    // Mailbox order of the deliveries, which the second-resolution received dates cannot always tell
+    private long nextSequence;
+
+    /**
+     * Constructor for VerificationCodeDispatcher.
+     *
+     * @param inbox The mailbox the verification emails are delivered to.
+     * @param clockSkewMillis Allowed difference between the local clock and the mail server's received dates.
+     * @param unclaimedRetentionSeconds How long a code nobody asked for yet is kept.
+     */
+    public VerificationCodeDispatcher(ImapInbox inbox, long clockSkewMillis, int unclaimedRetentionSeconds) {
+        this.inbox = inbox;
+        this.clockSkewMillis = clockSkewMillis;
+        this.unclaimedRetentionMillis = unclaimedRetentionSeconds * 1000L;
+    }
+
+    /**
+     * Gets the dispatcher shared by all tests for a mailbox account, creating it on first use.
+     *
+     * @param account The account the verification emails are delivered to.
+     * @param password The account password.
+     * @return The shared dispatcher.
+     */
+    public static synchronized VerificationCodeDispatcher forAccount(String account, String password) {
+        String key = account.toLowerCase();
+        VerificationCodeDispatcher dispatcher = SHARED.get(key);
+        if (dispatcher == null) {
+            dispatcher = new VerificationCodeDispatcher(ImapInbox.fromConfig(account, password),
+                ConfigReader.getIntProperty("email.dispatch.clock.skew.millis", 5000),
+                ConfigReader.getIntProperty("email.dispatch.unclaimed.seconds", 300));
+            SHARED.put(key, dispatcher);
+        }
+        return dispatcher;
+    }
+
+    /**
+     * Stops every shared dispatcher and prints their statistics.
+     */
+    public static synchronized void shutdownAll() {
+        for (VerificationCodeDispatcher dispatcher : SHARED.values()) {
+            dispatcher.shutdown();
+        }
+        SHARED.clear();
+    }
+
+    /**
+     * Builds a plus-address, e.g. user+tag@gmail.com for user@gmail.com, so the code sent to it
+     * can be told apart from codes for other logins using the same mailbox.
+     *
+     * @param address The base email address.
+     * @param tag The tag to add; letters, digits, dashes and dots.
+     * @return The tagged address.
+     */
+    public static String plusAddress(String address, String tag) {
+        int at = address.indexOf('@');
+        return address.substring(0, at) + "+" + tag + address.substring(at);
+    }
+
+    /**
+     * Registers a login that is about to receive a code and starts watching the mailbox.
+     *
+     * @param recipient The address the code is sent to, or null to accept any recipient.
+     * @return The future code; cancel it when the login gives up waiting.
+     */
+    public Future<String> expectCode(String recipient) {
+        return expectCode(recipient, System.currentTimeMillis());
+    }
+
+    /**
+     * Registers a login that has asked for a code.
+     *
+     * @param recipient The address the code is sent to, or null to accept any recipient.
+     * @param requestedAtMillis When the code was requested; older emails are not considered.
+     * @return The future code; cancel it when the login gives up waiting.
+     */
+    public Future<String> expectCode(String recipient, long requestedAtMillis) {
+        Waiter waiter = new Waiter(recipient == null ? null : recipient.toLowerCase(), requestedAtMillis);
+        requested.incrementAndGet();
+        synchronized (lock) {
+            // As in dispatch, a code for the exact address wins over one for the base address
+            Delivery newest = null;
+            for (boolean exact : new boolean[] {true, false}) {
+                for (Delivery delivery : unclaimed) {
+                    if (waiter.accepts(delivery, clockSkewMillis, exact)
+                            && (newest == null || delivery.sequence > newest.sequence)) {
+                        newest = delivery;
+                    }
+                }
+                if (newest != null) {
+                    break;
+                }
+            }
+            if (newest != null) {
+                // Older codes sent to the same address were replaced by the newest one
+                Set<String> recipients = newest.recipients;
+                unclaimed.removeIf(delivery -> delivery.recipients.equals(recipients));
+                complete(waiter, newest);
+                return waiter.future;
+            }
+            waiters.add(waiter);
+            if (watcher == null) {
+                running = true;
+                watcher = new Thread(this::watch, "verification-code-dispatcher");
+                watcher.setDaemon(true);
+                watcher.start();
+            }
+        }
+        return waiter.future;
+    }
+
+    /**
+     * Stops the watcher, closes the mailbox and cancels the logins still waiting.
+     */
+    public void shutdown() {
+        Thread thread;
+        synchronized (lock) {
+            running = false;
+            thread = watcher;
+            watcher = null;
+            for (Waiter waiter : waiters) {
+                waiter.future.cancel(false);
+            }
+            waiters.clear();
+        }
+        if (thread != null) {
+            inbox.wakeUp();
+            try {
+                thread.join(RECONNECT_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        System.out.println(getStatistics());
+    }
+
+    /**
+     * Gets a summary of the requests served by the dispatcher.
+     *
+     * @return The dispatcher statistics.
+     */
+    public String getStatistics() {
+        return "Verification code dispatcher statistics: requested=" + requested.get() +
+            ", delivered=" + delivered.get() + ", expiredUnclaimed=" + expiredUnclaimed.get() +
+            ", skippedOld=" + skippedOld.get();
+    }
+
+    private void watch() {
+        while (running) {
+            try {
+                if (!inbox.isOpen()) {
+                    inbox.open();
+                }
+                List<Delivery> deliveries = new ArrayList<>();
+                long oldestUseful = oldestUsefulMillis();
+                for (Message message : inbox.fetchNewVerificationEmails()) {
+                    long receivedAt = receivedAt(message);
+                    if (receivedAt < oldestUseful) {
+                        skippedOld.incrementAndGet();
+                        continue;
+                    }
+                    VerificationCodeExtractor.VerificationCode match = codeExtractor.extract(message);
+                    if (match != null) {
+                        deliveries.add(new Delivery(match.getCode(), recipientsOf(message), receivedAt, nextSequence++));
+                    }
+                }
+                // Newest first, so a resent code reaches its login before the one it replaced
+                for (int i = deliveries.size() - 1; i >= 0; i--) {
+                    dispatch(deliveries.get(i));
+                }
+                pruneExpired();
+                inbox.waitForNewMail(IDLE_REFRESH_MILLIS);
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                System.out.println("Verification mailbox watcher failed, reconnecting: " + e.getMessage());
+                inbox.close();
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException ie) {
+                    break;
+                }
+            }
+        }
+        inbox.close();
+    }
+
+    private void dispatch(Delivery delivery) {
+        synchronized (lock) {
+            Waiter chosen = null;
+            // An exact recipient match wins, then the longest waiting login for the base address
+            for (boolean exact : new boolean[] {true, false}) {
+                for (Waiter waiter : waiters) {
+                    if (waiter.future.isDone() || !waiter.accepts(delivery, clockSkewMillis, exact)) {
+                        continue;
+                    }
+                    if (chosen == null || waiter.requestedAtMillis < chosen.requestedAtMillis) {
+                        chosen = waiter;
+                    }
+                }
+                if (chosen != null) {
+                    break;
+                }
+            }
+
+            if (chosen != null) {
+                waiters.remove(chosen);
+                complete(chosen, delivery);
+            } else {
+                unclaimed.add(delivery);
+            }
+        }
+    }
+
+    /**
+     * Gets the received date before which an email can neither reach a waiting login nor
+     * outlive the unclaimed retention.
+     */
+    private long oldestUsefulMillis() {
+        long oldest = System.currentTimeMillis() - unclaimedRetentionMillis;
+        synchronized (lock) {
+            for (Waiter waiter : waiters) {
+                if (!waiter.future.isDone()) {
+                    oldest = Math.min(oldest, waiter.requestedAtMillis - clockSkewMillis);
+                }
+            }
+        }
+        return oldest;
+    }
+
+    private void complete(Waiter waiter, Delivery delivery) {
+        if (waiter.future.complete(delivery.code)) {
+            delivered.incrementAndGet();
+            System.out.println("Dispatched verification code for " + delivery.recipients + " after " +
+                (System.currentTimeMillis() - waiter.requestedAtMillis) + " ms");
+        }
+    }
+
+    private void pruneExpired() {
+        long cutoff = System.currentTimeMillis() - unclaimedRetentionMillis;
+        synchronized (lock) {
+            waiters.removeIf(waiter -> waiter.future.isDone());
+            Iterator<Delivery> iterator = unclaimed.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().receivedAtMillis < cutoff) {
+                    iterator.remove();
+                    expiredUnclaimed.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static Set<String> recipientsOf(Message message) throws MessagingException {
+        Set<String> recipients = new HashSet<>();
+        Address[] addresses = message.getAllRecipients();
+        if (addresses != null) {
+            for (Address address : addresses) {
+                String value = address instanceof InternetAddress
+                    ? ((InternetAddress) address).getAddress() : address.toString();
+                if (value != null) {
+                    recipients.add(value.toLowerCase());
+                }
+            }
+        }
+        return recipients;
+    }
+
+    private static long receivedAt(Message message) throws MessagingException {
+        Date date = message.getReceivedDate();
+        if (date == null) {
+            date = message.getSentDate();
+        }
+        return date == null ? System.currentTimeMillis() : date.getTime();
+    }
+
+    private static String baseAddress(String address) {
+        int plus = address.indexOf('+');
+        int at = address.indexOf('@');
+        return plus >= 0 && plus < at ? address.substring(0, plus) + address.substring(at) : address;
+    }
+
+    private static class Waiter {
+        private final String recipient;
+        private final long requestedAtMillis;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+
+        Waiter(String recipient, long requestedAtMillis) {
+            this.recipient = recipient;
+            this.requestedAtMillis = requestedAtMillis;
+        }
+
+        /**
+         * Checks whether a code email can belong to this login: it must not be older than the
+         * request, and must be addressed to the login's address (exact), or to the same base
+         * address with or without a plus tag (not exact). A plus-addressed login only takes
+         * codes sent to exactly that address.
+         */
+        boolean accepts(Delivery delivery, long clockSkewMillis, boolean exact) {
+            if (delivery.receivedAtMillis < requestedAtMillis - clockSkewMillis) {
+                return false;
+            }
+            if (recipient == null) {
+                return !exact;
+            }
+            if (delivery.recipients.contains(recipient)) {
+                return true;
+            }
+            if (exact || !recipient.equals(baseAddress(recipient))) {
+                return false;
+            }
+            for (String address : delivery.recipients) {
+                if (baseAddress(address).equals(recipient)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class Delivery {
+        private final String code;
+        private final Set<String> recipients;
+        private final long receivedAtMillis;
+        private final long sequence;
+
+        Delivery(String code, Set<String> recipients, long receivedAtMillis, long sequence) {
+            this.code = code;
+            this.recipients = recipients;
+            this.receivedAtMillis = receivedAtMillis;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.selenium.notion.utils;
+
+import javax.mail.MessagingException;
+import javax.mail.Multipart;
+import javax.mail.Part;
+import javax.mail.internet.ContentType;
+import javax.mail.internet.MimeUtility;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts a verification code from an email body without decoding the whole message.
+ *
+ * text/plain parts are read first and text/html parts only when the plain text held no
+ * confident match. Each part is streamed in small chunks (HTML tags, styles and scripts are
+ * dropped on the fly) and stops being read as soon as a confident code turns up, or once
+ * email.body.max.chars characters of the message have been scanned. The result carries a
+ * confidence score that reflects how specific the matching pattern was.
+ */
+public class VerificationCodeExtractor {
+
+    /** Matches at or above this confidence end the scan early. */
+    public static final double CONFIDENT = 0.9;
+
+    private static final int CHUNK_SIZE = 4096;
+    // Longest text a rule can match; matches ending this close to the end of a chunk wait for the next one
+    private static final int MAX_MATCH_LENGTH = 128;
+
+    // Ordered from most to least specific
+    private static final Rule[] RULES = {
+        new Rule("code:\\s{0,10}(\\d{4,8})", Pattern.CASE_INSENSITIVE, 0.95),        // "code: 123456"
+        new Rule("verification.{0,80}?\\b(\\d{4,6})\\b", Pattern.CASE_INSENSITIVE, 0.9), // "verification code 123456"
+        new Rule("\\b\\d{6}\\b", 0, 0.7),                                             // 6-digit code
+        new Rule("\\b\\d{4}\\b", 0, 0.4),                                             // 4-digit code
+        new Rule("\\b(?=[A-Z]*\\d)[A-Z0-9]{6}\\b", 0, 0.3)                           // 6-character alphanumeric
+    };
+
+    private final int maxChars;
+
+    /**
+     * Constructor for VerificationCodeExtractor.
+     *
+     * @param maxChars Maximum number of body characters scanned per message.
+     */
+    public VerificationCodeExtractor(int maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    /**
+     * Creates an extractor configured from config.properties.
+     *
+     * @return The configured extractor.
+     */
+    public static VerificationCodeExtractor fromConfig() {
+        return new VerificationCodeExtractor(ConfigReader.getIntProperty("email.body.max.chars", 262144));
+    }
+
+    /**
+     * Extracts the most likely verification code from a message or body part.
+     *
+     * @param message The message to scan.
+     * @return The code with its confidence, or null if the text holds nothing code-like.
+     * @throws MessagingException if the message structure cannot be read.
+     * @throws IOException if a body part cannot be read.
+     */
+    public VerificationCode extract(Part message) throws MessagingException, IOException {
+        List<Part> plainParts = new ArrayList<>();
+        List<Part> htmlParts = new ArrayList<>();
+        collectTextParts(message, plainParts, htmlParts);
+
+        Scan scan = new Scan();
+        for (Part part : plainParts) {
+            if (scan.isDone()) {
+                break;
+            }
+            try (Reader reader = open(part)) {
+                scan.read(reader, false);
+            }
+        }
+        for (Part part : htmlParts) {
+            if (scan.isDone()) {
+                break;
+            }
+            try (Reader reader = open(part)) {
+                scan.read(reader, true);
+            }
+        }
+        return scan.best;
+    }
+
+    /**
+     * Extracts the most likely verification code from plain text.
+     *
+     * @param text The text to scan.
+     * @return The code with its confidence, or null if the text holds nothing code-like.
+     */
+    public VerificationCode extract(String text) {
+        Scan scan = new Scan();
+        try {
+            scan.read(new StringReader(text), false);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return scan.best;
+    }
+
+    private void collectTextParts(Part part, List<Part> plainParts, List<Part> htmlParts)
+            throws MessagingException, IOException {
+        if (Part.ATTACHMENT.equalsIgnoreCase(part.getDisposition())) {
+            return;
+        }
+        if (part.isMimeType("text/plain")) {
+            plainParts.add(part);
+        } else if (part.isMimeType("text/html")) {
+            htmlParts.add(part);
+        } else if (part.isMimeType("multipart/*")) {
+            Multipart multipart = (Multipart) part.getContent();
+            for (int i = 0; i < multipart.getCount(); i++) {
+                collectTextParts(multipart.getBodyPart(i), plainParts, htmlParts);
+            }
+        }
+    }
+
+    private Reader open(Part part) throws MessagingException, IOException {
+        Charset charset = StandardCharsets.ISO_8859_1;
+        try {
+            String name = new ContentType(part.getContentType()).getParameter("charset");
+            if (name != null) {
+                charset = Charset.forName(MimeUtility.javaCharset(name));
+            }
+        } catch (Exception e) {
+            // Unknown or malformed charset, read the bytes as Latin-1
+        }
+        InputStream in = part.getInputStream();
+        return new InputStreamReader(in, charset);
+    }
+
+    /**
+     * State of one message scan: the best match so far and the character budget left.
+     */
+    private class Scan {
+        private VerificationCode best;
+        private int remaining = maxChars;
+
+        boolean isDone() {
+            return remaining <= 0 || (best != null && best.getConfidence() >= CONFIDENT);
+        }
+
+        void read(Reader reader, boolean html) throws IOException {
+            HtmlTextFilter filter = html ? new HtmlTextFilter() : null;
+            StringBuilder window = new StringBuilder();
+            char[] chunk = new char[CHUNK_SIZE];
+            int read;
+            while (!isDone() && (read = reader.read(chunk, 0, Math.min(chunk.length, remaining))) != -1) {
+                remaining -= read;
+                if (filter != null) {
+                    filter.append(chunk, read, window);
+                } else {
+                    window.append(chunk, 0, read);
+                }
+                boolean last = remaining <= 0;
+                match(window, last);
+                // Keep enough text for matches that straddle the chunk boundary
+                if (!last && window.length() > 2 * MAX_MATCH_LENGTH) {
+                    window.delete(0, window.length() - 2 * MAX_MATCH_LENGTH);
+                }
+            }
+            if (!isDone()) {
+                match(window, true);
+            }
+        }
+
+        private void match(CharSequence window, boolean complete) {
+            int limit = complete ? window.length() : window.length() - MAX_MATCH_LENGTH;
+            for (Rule rule : RULES) {
+                if (best != null && best.getConfidence() >= rule.confidence) {
+                    return;
+                }
+                Matcher matcher = rule.pattern.matcher(window);
+                if (matcher.find() && matcher.end() <= limit) {
+                    best = new VerificationCode(matcher.group(matcher.groupCount() > 0 ? 1 : 0), rule.confidence);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Streams the text content of HTML, replacing tags with spaces and dropping style and
+     * script elements, so CSS colours and inline script do not look like codes.
+     */
+    private static class HtmlTextFilter {
+        private final StringBuilder tag = new StringBuilder();
+        private boolean inTag;
+        private String skipUntil;
+
+        void append(char[] chars, int length, StringBuilder out) {
+            for (int i = 0; i < length; i++) {
+                char c = chars[i];
+                if (inTag) {
+                    if (c == '>') {
+                        inTag = false;
+                        closeTag(out);
+                    } else if (tag.length() < 16) {
+                        tag.append(Character.toLowerCase(c));
+                    }
+                } else if (c == '<') {
+                    inTag = true;
+                    tag.setLength(0);
+                } else if (skipUntil == null) {
+                    out.append(c);
+                }
+            }
+        }
+
+        private void closeTag(StringBuilder out) {
+            String name = tag.toString().trim();
+            if (skipUntil != null) {
+                if (name.startsWith(skipUntil)) {
+                    skipUntil = null;
+                }
+            } else if (name.startsWith("style") || name.startsWith("script")) {
+                skipUntil = "/" + (name.startsWith("style") ? "style" : "script");
+            }
+            out.append(' ');
+        }
+    }
+
+    private static class Rule {
+        private final Pattern pattern;
+        private final double confidence;
+
+        Rule(String regex, int flags, double confidence) {
+            this.pattern = Pattern.compile(regex, flags);
+            this.confidence = confidence;
+        }
+    }
+
+    /**
+     * A verification code found in an email, with the confidence of the pattern that matched.
+     */
+    public static class VerificationCode {
+        private final String code;
+        private final double confidence;
+
+        public VerificationCode(String code, double confidence) {
+            this.code = code;
+            this.confidence = confidence;
+        }
+
+        /**
+         * @return The verification code.
+         */
+        public String getCode() {
+            return code;
+        }
+
+        /**
+         * @return How specific the matching pattern was, between 0 and 1.
+         */
+        public double getConfidence() {
+            return confidence;
+        }
+
+        @Override
+        public String toString() {
+            return code + " (confidence " + confidence + ")";
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.selenium.notion.utils;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Owns every timeout used to wait for the page, so waits cannot compound.
+ *
+ * The implicit wait is pinned at zero: with a non-zero implicit wait every findElement inside
+ * an explicit wait's polling, or inside a chain of fallback locators, blocks for the full
+ * implicit timeout, and a missing element costs far more than any configured budget.
+ *
+ * Each kind of wait draws from a named budget, wait.budget.&lt;name&gt;.millis (page, spa,
+ * probe, click, navigation), falling back to wait.budget.default.millis. A test additionally
+ * has a deadline of wait.test.deadline.seconds from its start, and no wait is given more than
+ * what is left of it. Waits that run out are recorded per test and reported when it ends,
+ * noting whether the budget or the test deadline was the limit.
+ */
+public class WaitPolicy {
+
+    private static final long POLL_MILLIS = 250;
+
+    private static final ThreadLocal<TestDeadline> DEADLINE = new ThreadLocal<>();
+    private static final Map<String, AtomicInteger> EXHAUSTED = new ConcurrentHashMap<>();
+
+    private WaitPolicy() {
+    }
+
+    /**
+     * Pins the implicit wait of a session at zero, so only explicit, budgeted waits wait.
+     *
+     * @param driver The WebDriver session.
+     */
+    public static void pinImplicitWait(WebDriver driver) {
+        driver.manage().timeouts().implicitlyWait(0, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts the deadline of the test running on the current thread.
+     *
+     * @param testName The test name used in the report.
+     */
+    public static void beginTest(String testName) {
+        long deadlineMillis = ConfigReader.getIntProperty("wait.test.deadline.seconds", 180) * 1000L;
+        DEADLINE.set(new TestDeadline(testName, System.currentTimeMillis() + deadlineMillis));
+    }
+
+    /**
+     * Ends the deadline of the test running on the current thread.
+     *
+     * @return A report of the waits that ran out during the test, or null if none did.
+     */
+    public static String endTest() {
+        TestDeadline deadline = DEADLINE.get();
+        DEADLINE.remove();
+        if (deadline == null || deadline.exhausted.isEmpty()) {
+            return null;
+        }
+        StringBuilder report = new StringBuilder("Wait budgets exhausted in " + deadline.testName + ":");
+        for (String line : deadline.exhausted) {
+            report.append("\n  ").append(line);
+        }
+        return report.toString();
+    }
+
+    /**
+     * Gets the configured budget of a kind of wait.
+     *
+     * @param operation The budget name, e.g. "page" or "probe".
+     * @return The budget in milliseconds.
+     */
+    public static long budgetMillis(String operation) {
+        int defaultMillis = ConfigReader.getIntProperty("wait.budget.default.millis", 15000);
+        return ConfigReader.getIntProperty("wait.budget." + operation + ".millis", defaultMillis);
+    }
+
+    /**
+     * Gets how long a wait of the given kind may take right now: its budget, capped by what
+     * is left of the current test's deadline.
+     *
+     * @param operation The budget name.
+     * @return The allowed wait in milliseconds, 0 once the test deadline has passed.
+     */
+    public static long allowanceMillis(String operation) {
+        return allowanceMillis(operation, budgetMillis(operation));
+    }
+
+    /**
+     * Gets how long a wait with an explicitly requested timeout may take right now,
+     * capped by what is left of the current test's deadline.
+     *
+     * @param operation The budget name, used when reporting.
+     * @param requestedMillis The timeout asked for by the caller.
+     * @return The allowed wait in milliseconds, 0 once the test deadline has passed.
+     */
+    public static long allowanceMillis(String operation, long requestedMillis) {
+        TestDeadline deadline = DEADLINE.get();
+        if (deadline == null) {
+            return requestedMillis;
+        }
+        return Math.max(0, Math.min(requestedMillis, deadline.deadlineMillis - System.currentTimeMillis()));
+    }
+
+    /**
+     * Records that a wait ran out of time.
+     *
+     * @param operation The budget name or a description of the wait.
+     * @param allowedMillis The time the wait was given.
+     * @param requestedMillis The time the wait would have had without the test deadline.
+     */
+    public static void recordExhausted(String operation, long allowedMillis, long requestedMillis) {
+        EXHAUSTED.computeIfAbsent(operation, k -> new AtomicInteger()).incrementAndGet();
+        String line = "'" + operation + "' ran out after " + allowedMillis + " ms" +
+            (allowedMillis < requestedMillis ? " (cut from " + requestedMillis + " ms by the test deadline)" : "");
+        System.out.println("Wait budget " + line);
+        TestDeadline deadline = DEADLINE.get();
+        if (deadline != null) {
+            deadline.exhausted.add(line);
+        }
+    }
+
+    /**
+     * Creates an explicit wait that draws from a named budget each time it is used.
+     *
+     * @param driver The WebDriver session.
+     * @param operation The budget name.
+     * @return The budgeted wait.
+     */
+    public static BudgetedWait forOperation(WebDriver driver, String operation) {
+        return new BudgetedWait(driver, operation, budgetMillis(operation));
+    }
+
+    /**
+     * Creates an explicit wait with its own timeout, still capped by the test deadline.
+     *
+     * @param driver The WebDriver session.
+     * @param operation The budget name, used when reporting.
+     * @param timeoutMillis The timeout of each wait.
+     * @return The budgeted wait.
+     */
+    public static BudgetedWait forOperation(WebDriver driver, String operation, long timeoutMillis) {
+        return new BudgetedWait(driver, operation, timeoutMillis);
+    }
+
+    /**
+     * Gets how often each budget ran out over the suite.
+     *
+     * @return The wait policy statistics.
+     */
+    public static String getStatistics() {
+        return "Wait policy statistics: exhausted=" + new TreeMap<>(EXHAUSTED);
+    }
+
+    /**
+     * Explicit wait bound to a named budget. The timeout is computed when {@link #until(Function)}
+     * is called, so a wait late in a test gets no more than what is left of its deadline.
+     */
+    public static class BudgetedWait {
+        private final WebDriver driver;
+        private final String operation;
+        private final long timeoutMillis;
+
+        BudgetedWait(WebDriver driver, String operation, long timeoutMillis) {
+            this.driver = driver;
+            this.operation = operation;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        /**
+         * Waits until the condition returns a non-null, non-false value.
+         *
+         * @param condition The condition to evaluate, e.g. an ExpectedCondition.
+         * @return The value returned by the condition.
+         * @throws TimeoutException if the condition is not met within the allowance.
+         */
+        public <V> V until(Function<? super WebDriver, V> condition) {
+            long allowed = allowanceMillis(operation, timeoutMillis);
+            WebDriverWait wait = new WebDriverWait(driver, 0);
+            wait.withTimeout(Duration.ofMillis(allowed)).pollingEvery(Duration.ofMillis(POLL_MILLIS));
+            try {
+                return wait.until(condition);
+            } catch (TimeoutException e) {
+                recordExhausted(operation, allowed, timeoutMillis);
+                throw e;
+            }
+        }
+    }
+
+    private static class TestDeadline {
+        private final String testName;
+        private final long deadlineMillis;
+        private final List<String> exhausted = new ArrayList<>();
+
+        TestDeadline(String testName, long deadlineMillis) {
+            this.testName = testName;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.selenium.notion.utils;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pool of warm WebDriver sessions that are leased to tests and reset between leases.
+ * Creating a grid session costs several seconds, so sessions are reused until they
+ * reach the configured number of uses or sit idle for longer than the eviction timeout.
+ *
+ * Resetting clears cookies and web storage for the origin the session is currently on,
+ * closes extra tabs, restores the window size and leaves the session on about:blank.
+ *
+ * With a {@link SessionProvisioner} attached, the first sessions and the replacements
+ * for sessions about to be recycled are created in the background while tests run.
+ */
+public class WebDriverPool {
+
+    private final Supplier<WebDriver> factory;
+    private final int maxSize;
+    private final long idleEvictionMillis;
+    private final int maxUsesPerSession;
+
+    private final LinkedBlockingDeque<PooledSession> idle = new LinkedBlockingDeque<>();
+    private final Map<WebDriver, PooledSession> leased = new ConcurrentHashMap<>();
+    private final Semaphore leasePermits;
+    private volatile SessionProvisioner provisioner;
+
+    private final AtomicInteger sessionsCreated = new AtomicInteger();
+    private final AtomicInteger leases = new AtomicInteger();
+    private final AtomicInteger reuses = new AtomicInteger();
+    private final AtomicInteger recycled = new AtomicInteger();
+    private final AtomicInteger evicted = new AtomicInteger();
+    private final AtomicInteger resetFailures = new AtomicInteger();
+    private final AtomicLong creationMillis = new AtomicLong();
+
+    /**
+     * Constructor for WebDriverPool.
+     *
+     * @param factory Creates a new session when no idle one is available.
+     * @param maxSize Maximum number of sessions leased at the same time.
+     * @param idleEvictionSeconds How long a session may stay idle before it is closed.
+     * @param maxUsesPerSession How many leases a session serves before it is recycled.
+     */
+    public WebDriverPool(Supplier<WebDriver> factory, int maxSize, int idleEvictionSeconds, int maxUsesPerSession) {
+        this.factory = factory;
+        this.maxSize = Math.max(1, maxSize);
+        this.idleEvictionMillis = idleEvictionSeconds * 1000L;
+        this.maxUsesPerSession = Math.max(1, maxUsesPerSession);
+        this.leasePermits = new Semaphore(this.maxSize, true);
+    }
+
+    /**
+     * Creates a pool configured from config.properties.
+     *
+     * @param factory Creates a new session when no idle one is available.
+     * @return The configured pool.
+     */
+    public static WebDriverPool fromConfig(Supplier<WebDriver> factory) {
+        WebDriverPool pool = new WebDriverPool(factory,
+            ConfigReader.getPoolSize(),
+            ConfigReader.getPoolIdleEvictionSeconds(),
+            ConfigReader.getPoolMaxUsesPerSession());
+
+        int prewarmDepth = ConfigReader.getPoolPrewarmDepth();
+        if (prewarmDepth > 0) {
+            pool.setProvisioner(new SessionProvisioner(factory, prewarmDepth,
+                ConfigReader.getPoolPrewarmTimeoutSeconds()));
+        }
+        return pool;
+    }
+
+    /**
+     * Attaches a provisioner that creates sessions ahead of demand and starts pre-warming.
+     *
+     * @param provisioner The background session provisioner.
+     */
+    public synchronized void setProvisioner(SessionProvisioner provisioner) {
+        this.provisioner = provisioner;
+        provisioner.replenish();
+    }
+
+    /**
+     * Leases a session, reusing a warm idle one when possible.
+     * Blocks while the maximum number of sessions is already leased.
+     *
+     * @return The leased WebDriver session.
+     */
+    public WebDriver lease() {
+        try {
+            leasePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a pooled WebDriver session", e);
+        }
+
+        try {
+            evictIdleSessions();
+            leases.incrementAndGet();
+
+            PooledSession session = idle.pollFirst();
+            if (session != null) {
+                reuses.incrementAndGet();
+                System.out.println("Reusing pooled WebDriver session (use " + (session.uses + 1) + " of " + maxUsesPerSession + ")");
+            } else {
+                session = takeProvisionedSession();
+            }
+            if (session == null) {
+                session = createSession();
+            }
+
+            // Start the replacement now if this session is recycled when released
+            if (provisioner != null && session.uses + 1 >= maxUsesPerSession) {
+                provisioner.replenish();
+            }
+
+            leased.put(session.driver, session);
+            return session.driver;
+        } catch (RuntimeException e) {
+            leasePermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a session to the pool. The session is reset for the next test, or closed
+     * if it has reached its maximum number of uses or cannot be reset.
+     *
+     * @param driver The session previously obtained from {@link #lease()}.
+     */
+    public void release(WebDriver driver) {
+        PooledSession session = driver == null ? null : leased.remove(driver);
+        if (session == null) {
+            return;
+        }
+
+        try {
+            session.uses++;
+            if (session.uses >= maxUsesPerSession) {
+                recycled.incrementAndGet();
+                System.out.println("Recycling WebDriver session after " + session.uses + " uses");
+                quietQuit(session.driver);
+            } else if (resetSession(session)) {
+                session.lastReleasedAt = System.currentTimeMillis();
+                idle.offerFirst(session);
+            } else {
+                resetFailures.incrementAndGet();
+                quietQuit(session.driver);
+            }
+        } finally {
+            leasePermits.release();
+        }
+    }
+
+    /**
+     * Closes a leased session without returning it to the pool, e.g. after it crashed.
+     *
+     * @param driver The session previously obtained from {@link #lease()}.
+     */
+    public void discard(WebDriver driver) {
+        PooledSession session = driver == null ? null : leased.remove(driver);
+        if (session == null) {
+            return;
+        }
+        quietQuit(session.driver);
+        leasePermits.release();
+    }
+
+    /**
+     * Closes every idle session and prints the pool statistics.
+     * Sessions that are still leased are closed as well.
+     */
+    public void shutdown() {
+        List<PooledSession> remaining = new ArrayList<>();
+        idle.drainTo(remaining);
+        remaining.addAll(leased.values());
+        leased.clear();
+        for (PooledSession session : remaining) {
+            quietQuit(session.driver);
+        }
+        System.out.println(getStatistics());
+        if (provisioner != null) {
+            provisioner.shutdown();
+        }
+    }
+
+    /**
+     * Gets the number of sessions created by the pool.
+     *
+     * @return The created session count.
+     */
+    public int getSessionsCreated() {
+        return sessionsCreated.get();
+    }
+
+    /**
+     * Gets the number of leases served by an already warm session.
+     *
+     * @return The reuse count.
+     */
+    public int getReuses() {
+        return reuses.get();
+    }
+
+    /**
+     * Gets the average time it took to create a session.
+     *
+     * @return The average creation time in milliseconds.
+     */
+    public long getAverageCreationMillis() {
+        int created = sessionsCreated.get();
+        return created == 0 ? 0 : creationMillis.get() / created;
+    }
+
+    /**
+     * Estimates the session-creation time saved by reusing warm sessions.
+     *
+     * @return The estimated saved time in milliseconds.
+     */
+    public long getEstimatedSavedMillis() {
+        return reuses.get() * getAverageCreationMillis();
+    }
+
+    /**
+     * Builds a printable summary of the pool counters.
+     *
+     * @return The statistics summary.
+     */
+    public String getStatistics() {
+        return "WebDriver pool statistics:" +
+            " leases=" + leases.get() +
+            ", created=" + sessionsCreated.get() +
+            ", reused=" + reuses.get() +
+            ", recycled=" + recycled.get() +
+            ", evicted=" + evicted.get() +
+            ", resetFailures=" + resetFailures.get() +
+            ", avgCreationMs=" + getAverageCreationMillis() +
+            ", estimatedSavedMs=" + getEstimatedSavedMillis();
+    }
+
+    private PooledSession takeProvisionedSession() {
+        if (provisioner == null) {
+            return null;
+        }
+        SessionProvisioner.ProvisionedSession provisioned = provisioner.take();
+        return provisioned == null ? null : registerSession(provisioned.getDriver(), provisioned.getCreationMillis());
+    }
+
+    private PooledSession createSession() {
+        long start = System.currentTimeMillis();
+        WebDriver driver = factory.get();
+        long elapsed = System.currentTimeMillis() - start;
+        System.out.println("Created new WebDriver session in " + elapsed + " ms");
+        return registerSession(driver, elapsed);
+    }
+
+    private PooledSession registerSession(WebDriver driver, long elapsed) {
+        sessionsCreated.incrementAndGet();
+        creationMillis.addAndGet(elapsed);
+
+        PooledSession session = new PooledSession(driver);
+        try {
+            session.windowSize = driver.manage().window().getSize();
+        } catch (Exception e) {
+            // Window size is restored only when it could be read
+        }
+        return session;
+    }
+
+    private void evictIdleSessions() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledSession> iterator = idle.iterator();
+        while (iterator.hasNext()) {
+            PooledSession session = iterator.next();
+            if (now - session.lastReleasedAt > idleEvictionMillis && idle.remove(session)) {
+                evicted.incrementAndGet();
+                System.out.println("Evicting WebDriver session idle for " + (now - session.lastReleasedAt) + " ms");
+                quietQuit(session.driver);
+            }
+        }
+    }
+
+    private boolean resetSession(PooledSession session) {
+        WebDriver driver = session.driver;
+        try {
+            // Close every tab except the first one
+            List<String> handles = new ArrayList<>(driver.getWindowHandles());
+            if (handles.size() > 1) {
+                for (String handle : handles.subList(1, handles.size())) {
+                    driver.switchTo().window(handle);
+                    driver.close();
+                }
+            }
+            driver.switchTo().window(handles.get(0));
+
+            // Clear state of the origin the test left the session on
+            ((JavascriptExecutor) driver).executeScript(
+                "try { window.localStorage.clear(); } catch (e) {}" +
+                "try { window.sessionStorage.clear(); } catch (e) {}"
+            );
+            driver.manage().deleteAllCookies();
+            driver.get("about:blank");
+            WaitPolicy.pinImplicitWait(driver);
+
+            if (session.windowSize != null && !session.windowSize.equals(driver.manage().window().getSize())) {
+                driver.manage().window().setSize(session.windowSize);
+            }
+            return true;
+        } catch (Exception e) {
+            System.out.println("Could not reset pooled WebDriver session, closing it: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void quietQuit(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            System.out.println("Error closing WebDriver session: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A session owned by the pool together with its usage bookkeeping.
+     */
+    private static class PooledSession {
+        private final WebDriver driver;
+        private Dimension windowSize;
+        private int uses;
+        private long lastReleasedAt;
+
+        private PooledSession(WebDriver driver) {
+            this.driver = driver;
+            this.lastReleasedAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+// Lightweight stand-in for the Notion web app used by NotionFixtureServer.
+// Renders the home, about, login -> verification code -> workspace -> logout flow client-side.
+(function () {
+    var root = document.getElementById('root');
+
+    function api(path, body) {
+        return fetch(path, {
+            method: body === undefined ? 'GET' : 'POST',
+            headers: { 'Content-Type': 'application/json' },
+            credentials: 'same-origin',
+            body: body === undefined ? undefined : JSON.stringify(body)
+        }).then(function (response) {
+            if (!response.ok) {
+                throw new Error('Request failed with status ' + response.status);
+            }
+            return response.json();
+        });
+    }
+
+    function navigate(path) {
+        history.pushState({}, '', path);
+        route();
+    }
+
+    function header() {
+        return '<header class="header"><nav class="nav">' +
+            '<a href="/">Home</a> <a href="/about">About</a> ' +
+            '<a href="/login">Log in</a> <a href="/signup">Sign up</a>' +
+            '</nav></header>';
+    }
+
+    function renderHome() {
+        root.innerHTML = header() +
+            '<main><h1 class="hero">Your connected workspace</h1>' +
+            '<p>Write, plan and organize in one place.</p>' +
+            '<a href="/signup">Get started</a></main>';
+    }
+
+    function renderAbout() {
+        root.innerHTML = header() +
+            '<main class="content about"><h1>About Notion</h1>' +
+            '<section><p>We build tools for thought.</p></section></main>';
+    }
+
+    function renderLogin() {
+        // Mimic a SPA that renders its form after the bundle has loaded
+        root.innerHTML = '<div class="loading">Loading...</div>';
+        setTimeout(function () {
+            root.innerHTML = header() +
+                '<main><h1>Log in</h1><form id="email-form">' +
+                '<input type="email" name="email" id="email" placeholder="Enter your email address...">' +
+                '<button type="submit">Continue</button>' +
+                '<p class="error hidden" id="error"></p></form></main>';
+            document.getElementById('email-form').addEventListener('submit', function (event) {
+                event.preventDefault();
+                var email = document.getElementById('email').value;
+                api('/api/sendCode', { email: email })
+                    .then(function () { renderVerification(email); })
+                    .catch(showError);
+            });
+        }, 50);
+    }
+
+    function renderVerification(email) {
+        root.innerHTML = header() +
+            '<main><h1>Check your email</h1>' +
+            '<p>We sent a verification code to ' + email + '. Enter the code below.</p>' +
+            '<form id="code-form">' +
+            '<input type="text" name="code" placeholder="Enter verification code">' +
+            '<button type="submit">Continue</button>' +
+            '<p class="error hidden" id="error"></p></form></main>';
+        document.getElementById('code-form').addEventListener('submit', function (event) {
+            event.preventDefault();
+            var code = document.querySelector('input[name="code"]').value;
+            api('/api/verify', { email: email, code: code })
+                .then(function () { navigate('/workspace'); })
+                .catch(showError);
+        });
+    }
+
+    function renderWorkspace() {
+        api('/api/session').then(function (session) {
+            if (!session.email) {
+                navigate('/login');
+                return;
+            }
+            root.innerHTML =
+                '<div class="sidebar">' +
+                '<button class="user-avatar" aria-label="profile menu" aria-haspopup="menu">' + session.email + '</button>' +
+                '<div class="menu hidden" id="account-menu">' +
+                '<button type="button" id="logout">Log out</button></div></div>' +
+                '<main class="workspace main-content"><h1>My workspace</h1>' +
+                '<div class="page">Getting started</div></main>';
+            document.querySelector('.user-avatar').addEventListener('click', function () {
+                document.getElementById('account-menu').classList.remove('hidden');
+            });
+            document.getElementById('logout').addEventListener('click', function () {
+                api('/api/logout', {}).then(function () { navigate('/login'); }).catch(showError);
+            });
+        }).catch(function () { navigate('/login'); });
+    }
+
+    function showError(error) {
+        var element = document.getElementById('error');
+        if (element) {
+            element.textContent = 'Something went wrong: ' + error.message;
+            element.classList.remove('hidden');
+        }
+    }
+
+    function route() {
+        var path = location.pathname;
+        if (path === '/login' || path === '/signup') {
+            renderLogin();
+        } else if (path === '/about') {
+            renderAbout();
+        } else if (path === '/workspace') {
+            renderWorkspace();
+        } else {
+            renderHome();
+        }
+    }
+
+    document.addEventListener('click', function (event) {
+        var link = event.target.closest('a');
+        if (link && link.getAttribute('href').charAt(0) === '/') {
+            event.preventDefault();
+            navigate(link.getAttribute('href'));
+        }
+    });
+    window.addEventListener('popstate', route);
+    route();
+})();
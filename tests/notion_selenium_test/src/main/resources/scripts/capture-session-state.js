@@ -0,0 +1,145 @@
+// Captures the client-side session state of the current origin: every localStorage and
+// sessionStorage item, and the schema and records of every IndexedDB database. Records whose
+// key or value does not survive JSON (Blobs, Dates, cyclic objects) are skipped and counted.
+// Resolves with { origin, localStorage, sessionStorage, indexedDB, skipped, complete }.
+// Arguments: maxRecordsPerStore, timeoutMs, callback (added by executeAsyncScript).
+var maxRecords = arguments[0];
+var timeoutMs = arguments[1];
+var done = arguments[arguments.length - 1];
+
+var state = {
+    origin: window.location.origin,
+    localStorage: {},
+    sessionStorage: {},
+    indexedDB: [],
+    skipped: 0,
+    complete: true
+};
+var finished = false;
+
+function finish() {
+    if (!finished) {
+        finished = true;
+        done(state);
+    }
+}
+
+function copyStorage(storage, target) {
+    for (var i = 0; i < storage.length; i++) {
+        var key = storage.key(i);
+        target[key] = storage.getItem(key);
+    }
+}
+
+function jsonSafe(value) {
+    try {
+        var text = JSON.stringify(value);
+        return text !== undefined && JSON.stringify(JSON.parse(text)) === text;
+    } catch (e) {
+        return false;
+    }
+}
+
+function isPlainKey(key) {
+    return typeof key === 'string' || typeof key === 'number' || Array.isArray(key);
+}
+
+function captureStore(db, storeName, target, next) {
+    var transaction = db.transaction(storeName, 'readonly');
+    var store = transaction.objectStore(storeName);
+    var captured = {
+        name: storeName,
+        keyPath: store.keyPath,
+        autoIncrement: store.autoIncrement,
+        indexes: [],
+        records: []
+    };
+    for (var i = 0; i < store.indexNames.length; i++) {
+        var index = store.index(store.indexNames[i]);
+        captured.indexes.push({ name: index.name, keyPath: index.keyPath, unique: index.unique, multiEntry: index.multiEntry });
+    }
+    var request = store.openCursor();
+    request.onsuccess = function () {
+        var cursor = request.result;
+        if (!cursor) {
+            return;
+        }
+        if (captured.records.length >= maxRecords) {
+            state.complete = false;
+            return;
+        }
+        if (isPlainKey(cursor.primaryKey) && jsonSafe(cursor.primaryKey) && jsonSafe(cursor.value)) {
+            captured.records.push({ key: cursor.primaryKey, value: cursor.value });
+        } else {
+            state.skipped++;
+        }
+        cursor.continue();
+    };
+    transaction.oncomplete = function () {
+        target.stores.push(captured);
+        next();
+    };
+    transaction.onerror = transaction.onabort = function () {
+        state.complete = false;
+        next();
+    };
+}
+
+function captureDatabase(info, next) {
+    var request = indexedDB.open(info.name);
+    request.onupgradeneeded = function () {
+        // The database was deleted since it was listed; do not create it
+        request.transaction.abort();
+    };
+    request.onerror = function () {
+        next();
+    };
+    request.onsuccess = function () {
+        var db = request.result;
+        var captured = { name: db.name, version: db.version, stores: [] };
+        var names = Array.prototype.slice.call(db.objectStoreNames);
+        (function nextStore() {
+            if (finished) {
+                db.close();
+                return;
+            }
+            if (names.length === 0) {
+                db.close();
+                state.indexedDB.push(captured);
+                next();
+                return;
+            }
+            captureStore(db, names.shift(), captured, nextStore);
+        })();
+    };
+}
+
+try {
+    copyStorage(window.localStorage, state.localStorage);
+    copyStorage(window.sessionStorage, state.sessionStorage);
+} catch (e) {
+    state.complete = false;
+}
+
+setTimeout(function () {
+    state.complete = false;
+    finish();
+}, timeoutMs);
+
+if (!window.indexedDB || typeof indexedDB.databases !== 'function') {
+    // The database names cannot be listed in this browser
+    finish();
+} else {
+    indexedDB.databases().then(function (databases) {
+        (function nextDatabase() {
+            if (databases.length === 0) {
+                finish();
+                return;
+            }
+            captureDatabase(databases.shift(), nextDatabase);
+        })();
+    }, function () {
+        state.complete = false;
+        finish();
+    });
+}
@@ -0,0 +1,28 @@
+// Evaluates every XPath candidate in one pass and returns the first visible match in
+// candidate order as { index, element }, or null if no candidate has a visible match.
+// Arguments: xpaths (array of strings).
+var xpaths = arguments[0];
+
+function isVisible(element) {
+    if (!element.getClientRects || element.getClientRects().length === 0) {
+        return false;
+    }
+    var style = window.getComputedStyle(element);
+    return style.visibility !== 'hidden' && style.display !== 'none' && style.opacity !== '0';
+}
+
+for (var i = 0; i < xpaths.length; i++) {
+    var snapshot;
+    try {
+        snapshot = document.evaluate(xpaths[i], document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+    } catch (e) {
+        continue;
+    }
+    for (var j = 0; j < snapshot.snapshotLength; j++) {
+        var node = snapshot.snapshotItem(j);
+        if (node.nodeType === 1 && isVisible(node)) {
+            return { index: i, element: node };
+        }
+    }
+}
+return null;
@@ -0,0 +1,62 @@
+// Defines scanKeywords(text, keywords, maxPositions), the in-browser counterpart of
+// KeywordScanner: an Aho-Corasick scan that finds all lower case keywords in one pass,
+// ignoring case, and returns { keyword: [start positions] } for the keywords found.
+// Meant to be prepended to a script that calls it.
+function scanKeywords(text, keywords, maxPositions) {
+    var transitions = [{}];
+    var failures = [0];
+    var outputs = [[]];
+    var k, i, state, c;
+
+    for (k = 0; k < keywords.length; k++) {
+        state = 0;
+        for (i = 0; i < keywords[k].length; i++) {
+            c = keywords[k].charAt(i);
+            if (!Object.prototype.hasOwnProperty.call(transitions[state], c)) {
+                transitions.push({});
+                failures.push(0);
+                outputs.push([]);
+                transitions[state][c] = transitions.length - 1;
+            }
+            state = transitions[state][c];
+        }
+        outputs[state].push(k);
+    }
+
+    var queue = [];
+    for (c in transitions[0]) {
+        queue.push(transitions[0][c]);
+    }
+    while (queue.length > 0) {
+        state = queue.shift();
+        for (c in transitions[state]) {
+            var child = transitions[state][c];
+            var failure = failures[state];
+            while (failure !== 0 && !Object.prototype.hasOwnProperty.call(transitions[failure], c)) {
+                failure = failures[failure];
+            }
+            var target = Object.prototype.hasOwnProperty.call(transitions[failure], c) ? transitions[failure][c] : 0;
+            failures[child] = target === child ? 0 : target;
+            outputs[child] = outputs[child].concat(outputs[failures[child]]);
+            queue.push(child);
+        }
+    }
+
+    var hits = {};
+    state = 0;
+    for (i = 0; i < text.length; i++) {
+        c = text.charAt(i).toLowerCase().charAt(0);
+        while (state !== 0 && !Object.prototype.hasOwnProperty.call(transitions[state], c)) {
+            state = failures[state];
+        }
+        state = Object.prototype.hasOwnProperty.call(transitions[state], c) ? transitions[state][c] : 0;
+        for (k = 0; k < outputs[state].length; k++) {
+            var keyword = keywords[outputs[state][k]];
+            var positions = hits[keyword] || (hits[keyword] = []);
+            if (positions.length < maxPositions) {
+                positions.push(i - keyword.length + 1);
+            }
+        }
+    }
+    return hits;
+}
@@ -0,0 +1,69 @@
+// Installs window.__networkMonitor once per document. It wraps fetch, XMLHttpRequest and
+// WebSocket to keep a count of in-flight requests and the time of the last network activity.
+// Requests started before the monitor was installed are not counted.
+(function () {
+    if (window.__networkMonitor) {
+        return;
+    }
+
+    var monitor = { inflight: 0, lastActivity: Date.now(), total: 0 };
+    window.__networkMonitor = monitor;
+
+    function started() {
+        monitor.inflight++;
+        monitor.total++;
+        monitor.lastActivity = Date.now();
+    }
+
+    function finished() {
+        monitor.inflight = Math.max(0, monitor.inflight - 1);
+        monitor.lastActivity = Date.now();
+    }
+
+    if (window.fetch) {
+        var originalFetch = window.fetch;
+        window.fetch = function () {
+            started();
+            try {
+                return originalFetch.apply(this, arguments).then(function (response) {
+                    finished();
+                    return response;
+                }, function (error) {
+                    finished();
+                    throw error;
+                });
+            } catch (e) {
+                finished();
+                throw e;
+            }
+        };
+    }
+
+    if (window.XMLHttpRequest) {
+        var originalSend = XMLHttpRequest.prototype.send;
+        XMLHttpRequest.prototype.send = function () {
+            started();
+            this.addEventListener('loadend', finished);
+            try {
+                return originalSend.apply(this, arguments);
+            } catch (e) {
+                this.removeEventListener('loadend', finished);
+                finished();
+                throw e;
+            }
+        };
+    }
+
+    if (window.WebSocket) {
+        // Socket frames have no response to wait for, they only count as activity
+        var originalSocketSend = WebSocket.prototype.send;
+        WebSocket.prototype.send = function () {
+            monitor.lastActivity = Date.now();
+            if (!this.__networkMonitorListening) {
+                this.__networkMonitorListening = true;
+                this.addEventListener('message', function () { monitor.lastActivity = Date.now(); });
+            }
+            return originalSocketSend.apply(this, arguments);
+        };
+    }
+})();
@@ -0,0 +1,70 @@
+// Collects everything PageDebugHelper reports about the current page in one call and
+// returns it as a JSON string, so a debug dump costs a single WebDriver round trip.
+// Arguments: maxElements, keywords (array of lower case strings searched in the page source).
+var maxElements = arguments[0];
+var keywords = arguments[1];
+
+function isVisible(element) {
+    if (!element.getClientRects || element.getClientRects().length === 0) {
+        return false;
+    }
+    var style = window.getComputedStyle(element);
+    return style.visibility !== 'hidden' && style.display !== 'none' && style.opacity !== '0';
+}
+
+function describe(selector, limit, properties) {
+    var elements = document.getElementsByTagName(selector);
+    var items = [];
+    for (var i = 0; i < elements.length && i < limit; i++) {
+        items.push(properties(elements[i]));
+    }
+    return { total: elements.length, items: items };
+}
+
+function countXPath(xpath) {
+    return document.evaluate('count(' + xpath + ')', document, null, XPathResult.NUMBER_TYPE, null).numberValue;
+}
+
+// scanKeywords comes from keyword-scanner.js, prepended by PageDebugHelper
+var keywordHits = {};
+var keywordPositions = scanKeywords(document.documentElement.outerHTML, keywords, 1);
+for (var k = 0; k < keywords.length; k++) {
+    keywordHits[keywords[k]] = Object.prototype.hasOwnProperty.call(keywordPositions, keywords[k]);
+}
+
+return JSON.stringify({
+    url: location.href,
+    title: document.title,
+    inputs: describe('input', maxElements, function (input) {
+        return {
+            type: input.getAttribute('type'),
+            name: input.getAttribute('name'),
+            id: input.getAttribute('id'),
+            placeholder: input.getAttribute('placeholder'),
+            className: input.getAttribute('class'),
+            visible: isVisible(input)
+        };
+    }),
+    buttons: describe('button', maxElements, function (button) {
+        return {
+            text: isVisible(button) ? button.innerText.trim() : '',
+            type: button.getAttribute('type'),
+            className: button.getAttribute('class'),
+            visible: isVisible(button)
+        };
+    }),
+    forms: describe('form', Infinity, function (form) {
+        return {
+            action: form.getAttribute('action'),
+            method: form.getAttribute('method'),
+            className: form.getAttribute('class')
+        };
+    }),
+    keywords: keywordHits,
+    spa: {
+        loadingIndicators: countXPath("//*[contains(@class, 'loading') or contains(@class, 'spinner') or contains(text(), 'Loading')]"),
+        divs: document.getElementsByTagName('div').length,
+        scripts: document.getElementsByTagName('script').length,
+        bodyClass: document.body ? document.body.getAttribute('class') : null
+    }
+});
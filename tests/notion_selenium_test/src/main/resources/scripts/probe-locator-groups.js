@@ -0,0 +1,64 @@
+// Evaluates several groups of XPath candidates in one pass. For each group it returns the
+// first candidate, in candidate order, with a visible and clickable match as
+// { index, element, clickable: true }; failing that, the first visible match as
+// { index, element, clickable: false }; or null if nothing in the group is visible.
+// Arguments: groups (array of arrays of strings).
+var groups = arguments[0];
+
+function isVisible(element) {
+    if (!element.getClientRects || element.getClientRects().length === 0) {
+        return false;
+    }
+    var style = window.getComputedStyle(element);
+    return style.visibility !== 'hidden' && style.display !== 'none' && style.opacity !== '0';
+}
+
+function isClickable(element) {
+    if (element.disabled || element.getAttribute('aria-disabled') === 'true') {
+        return false;
+    }
+    if (window.getComputedStyle(element).pointerEvents === 'none') {
+        return false;
+    }
+    var rect = element.getBoundingClientRect();
+    var x = rect.left + rect.width / 2;
+    var y = rect.top + rect.height / 2;
+    if (x < 0 || y < 0 || x >= window.innerWidth || y >= window.innerHeight) {
+        // Off screen; WebDriver scrolls it into view before clicking
+        return true;
+    }
+    // Another element (e.g. an overlay) on top would receive the click
+    var hit = document.elementFromPoint(x, y);
+    return hit !== null && (hit === element || element.contains(hit) || hit.contains(element));
+}
+
+function probe(xpaths) {
+    var firstVisible = null;
+    for (var i = 0; i < xpaths.length; i++) {
+        var snapshot;
+        try {
+            snapshot = document.evaluate(xpaths[i], document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+        } catch (e) {
+            continue;
+        }
+        for (var j = 0; j < snapshot.snapshotLength; j++) {
+            var node = snapshot.snapshotItem(j);
+            if (node.nodeType !== 1 || !isVisible(node)) {
+                continue;
+            }
+            if (isClickable(node)) {
+                return { index: i, element: node, clickable: true };
+            }
+            if (firstVisible === null) {
+                firstVisible = { index: i, element: node, clickable: false };
+            }
+        }
+    }
+    return firstVisible;
+}
+
+var results = [];
+for (var g = 0; g < groups.length; g++) {
+    results.push(probe(groups[g]));
+}
+return results;
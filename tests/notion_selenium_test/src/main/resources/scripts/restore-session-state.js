@@ -0,0 +1,112 @@
+// Restores client-side session state captured by capture-session-state.js into the current
+// origin. Web Storage is replaced; IndexedDB records are written with put(), creating missing
+// databases and object stores when the captured version is newer than the existing one.
+// Resolves with { restored, failed }.
+// Arguments: state, timeoutMs, callback (added by executeAsyncScript).
+var state = arguments[0];
+var timeoutMs = arguments[1];
+var done = arguments[arguments.length - 1];
+
+var result = { restored: 0, failed: 0 };
+var finished = false;
+
+function finish() {
+    if (!finished) {
+        finished = true;
+        done(result);
+    }
+}
+
+function replaceStorage(storage, items) {
+    storage.clear();
+    for (var key in items) {
+        if (Object.prototype.hasOwnProperty.call(items, key)) {
+            storage.setItem(key, items[key]);
+            result.restored++;
+        }
+    }
+}
+
+function createStore(db, captured) {
+    var options = { autoIncrement: captured.autoIncrement };
+    if (captured.keyPath !== null) {
+        options.keyPath = captured.keyPath;
+    }
+    var store = db.createObjectStore(captured.name, options);
+    for (var i = 0; i < captured.indexes.length; i++) {
+        var index = captured.indexes[i];
+        store.createIndex(index.name, index.keyPath, { unique: index.unique, multiEntry: index.multiEntry });
+    }
+}
+
+function restoreDatabase(captured, next) {
+    var request = indexedDB.open(captured.name, captured.version);
+    request.onupgradeneeded = function () {
+        var db = request.result;
+        for (var i = 0; i < captured.stores.length; i++) {
+            if (!db.objectStoreNames.contains(captured.stores[i].name)) {
+                createStore(db, captured.stores[i]);
+            }
+        }
+    };
+    request.onerror = function (event) {
+        // Typically a VersionError: the origin already has a newer database
+        event.preventDefault();
+        result.failed++;
+        next();
+    };
+    request.onsuccess = function () {
+        var db = request.result;
+        var stores = captured.stores.filter(function (store) {
+            return db.objectStoreNames.contains(store.name);
+        });
+        result.failed += captured.stores.length - stores.length;
+        if (stores.length === 0) {
+            db.close();
+            next();
+            return;
+        }
+        var transaction = db.transaction(stores.map(function (store) { return store.name; }), 'readwrite');
+        var written = 0;
+        stores.forEach(function (capturedStore) {
+            var store = transaction.objectStore(capturedStore.name);
+            capturedStore.records.forEach(function (record) {
+                var put = capturedStore.keyPath !== null ? store.put(record.value) : store.put(record.value, record.key);
+                put.onsuccess = function () {
+                    written++;
+                };
+                put.onerror = function (event) {
+                    event.preventDefault();
+                    result.failed++;
+                };
+            });
+        });
+        transaction.oncomplete = transaction.onabort = function () {
+            result.restored += written;
+            db.close();
+            next();
+        };
+    };
+}
+
+try {
+    replaceStorage(window.localStorage, state.localStorage || {});
+    replaceStorage(window.sessionStorage, state.sessionStorage || {});
+} catch (e) {
+    result.failed++;
+}
+
+setTimeout(finish, timeoutMs);
+
+var databases = (state.indexedDB || []).slice();
+if (databases.length > 0 && !window.indexedDB) {
+    result.failed += databases.length;
+    databases = [];
+}
+(function nextDatabase() {
+    if (databases.length === 0) {
+        finish();
+        return;
+    }
+    restoreDatabase(databases.shift(), nextDatabase);
+})();
@@ -0,0 +1,42 @@
+// Resolves once an element matching the selectors exists and the DOM has been free of
+// mutations for the settle window, or when the timeout expires.
+// Arguments: selectors (CSS), settleMs, timeoutMs, callback (added by executeAsyncScript).
+var selectors = arguments[0];
+var settleMs = arguments[1];
+var timeoutMs = arguments[2];
+var done = arguments[arguments.length - 1];
+
+var start = Date.now();
+var finished = false;
+var settleTimer = null;
+var timeoutTimer = null;
+var observer = null;
+
+function present() {
+    return document.querySelector(selectors) !== null;
+}
+
+function finish(status) {
+    if (finished) {
+        return;
+    }
+    finished = true;
+    if (observer) {
+        observer.disconnect();
+    }
+    clearTimeout(settleTimer);
+    clearTimeout(timeoutTimer);
+    done({ status: status, found: present(), elapsed: Date.now() - start });
+}
+
+function restartSettleWindow() {
+    clearTimeout(settleTimer);
+    if (present()) {
+        settleTimer = setTimeout(function () { finish('settled'); }, settleMs);
+    }
+}
+
+observer = new MutationObserver(restartSettleWindow);
+observer.observe(document.documentElement, { childList: true, subtree: true, attributes: true, characterData: true });
+timeoutTimer = setTimeout(function () { finish('timeout'); }, timeoutMs);
+restartSettleWindow();
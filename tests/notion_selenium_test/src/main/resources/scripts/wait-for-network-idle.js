@@ -0,0 +1,21 @@
+// Resolves once window.__networkMonitor reports at most maxInflight requests and no network
+// activity for idleMs, or when the timeout expires. Run after network-monitor.js.
+// Arguments: idleMs, maxInflight, timeoutMs, callback (added by executeAsyncScript).
+var idleMs = arguments[0];
+var maxInflight = arguments[1];
+var timeoutMs = arguments[2];
+var done = arguments[arguments.length - 1];
+
+var monitor = window.__networkMonitor;
+var start = Date.now();
+
+(function check() {
+    var now = Date.now();
+    if (monitor.inflight <= maxInflight && now - monitor.lastActivity >= idleMs) {
+        done({ idle: true, inflight: monitor.inflight, elapsed: now - start });
+    } else if (now - start >= timeoutMs) {
+        done({ idle: false, inflight: monitor.inflight, elapsed: now - start });
+    } else {
+        setTimeout(check, 25);
+    }
+})();
@@ -0,0 +1,105 @@
+// Resolves once React has rendered and N consecutive animation frames have passed with no
+// DOM mutations and no React commits, then waits for the next idle period. Resolves early
+// with status 'timeout' when the budget runs out.
+// React commits are counted through the DevTools global hook when the page exposes one.
+// Arguments: quietFrames, timeoutMs, callback (added by executeAsyncScript).
+var quietFrames = arguments[0];
+var timeoutMs = arguments[1];
+var done = arguments[arguments.length - 1];
+
+var start = Date.now();
+var finished = false;
+var changes = 0;
+var lastSeenChanges = -1;
+var quiet = 0;
+var frames = 0;
+var observer = null;
+var timeoutTimer = null;
+var hook = window.__REACT_DEVTOOLS_GLOBAL_HOOK__;
+var originalOnCommit = null;
+var commitHooked = false;
+
+function reactDetected() {
+    return typeof window.React !== 'undefined' ||
+        document.querySelector('[data-reactroot]') !== null ||
+        document.querySelector('[data-react-helmet]') !== null ||
+        (hook && hook.renderers && hook.renderers.size > 0);
+}
+
+function finish(status) {
+    if (finished) {
+        return;
+    }
+    finished = true;
+    if (observer) {
+        observer.disconnect();
+    }
+    if (commitHooked) {
+        hook.onCommitFiberRoot = originalOnCommit;
+    }
+    clearTimeout(timeoutTimer);
+    done({ status: status, react: !!reactDetected(), frames: frames, commitHooked: commitHooked, elapsed: Date.now() - start });
+}
+
+// requestAnimationFrame does not fire in hidden tabs, so fall back to a timer
+function nextFrame(callback) {
+    var called = false;
+    function once() {
+        if (!called) {
+            called = true;
+            callback();
+        }
+    }
+    if (window.requestAnimationFrame) {
+        window.requestAnimationFrame(once);
+    }
+    setTimeout(once, 100);
+}
+
+function whenIdle(callback) {
+    if (window.requestIdleCallback) {
+        window.requestIdleCallback(callback, { timeout: 200 });
+    } else {
+        setTimeout(callback, 0);
+    }
+}
+
+function onFrame() {
+    if (finished) {
+        return;
+    }
+    frames++;
+    if (changes === lastSeenChanges && reactDetected()) {
+        quiet++;
+    } else {
+        quiet = 0;
+    }
+    lastSeenChanges = changes;
+
+    if (quiet >= quietFrames) {
+        whenIdle(function () {
+            if (changes === lastSeenChanges) {
+                finish('quiescent');
+            } else {
+                quiet = 0;
+                nextFrame(onFrame);
+            }
+        });
+        return;
+    }
+    nextFrame(onFrame);
+}
+
+if (hook && typeof hook.onCommitFiberRoot === 'function') {
+    originalOnCommit = hook.onCommitFiberRoot;
+    hook.onCommitFiberRoot = function () {
+        changes++;
+        return originalOnCommit.apply(this, arguments);
+    };
+    commitHooked = true;
+}
+
+observer = new MutationObserver(function () { changes++; });
+observer.observe(document.documentElement, { childList: true, subtree: true, attributes: true, characterData: true });
+timeoutTimer = setTimeout(function () { finish('timeout'); }, timeoutMs);
+nextFrame(onFrame);
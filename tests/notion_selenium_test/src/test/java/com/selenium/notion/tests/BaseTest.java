@@ -1,54 +1,333 @@
 package com.selenium.notion.tests;
 
+import com.selenium.notion.pages.DashboardPage;
+import com.selenium.notion.pages.LoginPage;
+import com.selenium.notion.utils.CachingElementLocatorFactory;
+import com.selenium.notion.utils.ConfigReader;
+import com.selenium.notion.utils.DriverFactory;
+import com.selenium.notion.utils.DriverManager;
+import com.selenium.notion.utils.HttpRecordReplayProxy;
+import com.selenium.notion.utils.NotionFixtureServer;
+import com.selenium.notion.utils.SessionVault;
+import com.selenium.notion.utils.VerificationCodeDispatcher;
+import com.selenium.notion.utils.WaitPolicy;
+import com.selenium.notion.utils.WebDriverPool;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.remote.RemoteWebDriver;
+import org.testng.ITestResult;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
 
-import java.net.URL;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Base class for all tests. Each test method leases its own WebDriver session from
+ * the shared pool and binds it to the current thread, so tests can run with
+ * TestNG's parallel=methods, classes or instances modes.
+ *
+ * When fixture.enabled is true, the suite runs against the embedded Notion stand-in server.
+ * Otherwise, when http.cache.mode is record or replay, it runs against a local recording proxy.
+ * In both cases base.url is pointed at the local server for the duration of the suite.
+ *
+ * Test methods marked with {@link Flow} share one session across the dependent steps of the
+ * flow instead of leasing their own, so later steps continue where the earlier ones left off.
+ *
+ * Each test method gets a {@link WaitPolicy} deadline that all of its waits draw from.
+ *
+ * Tests that need a logged-in session call {@link #ensureLoggedIn()} or {@link #openDashboard()},
+ * which restore the session saved in the {@link SessionVault} and only go through the email
+ * verification login when there is no usable saved session.
+ *
+ * Failed tests get diagnostics written by {@link DiagnosticsListener}.
+ */
+@Listeners(DiagnosticsListener.class)
 public class BaseTest {
-    protected WebDriver driver;
+    private static WebDriverPool driverPool;
+    private static HttpRecordReplayProxy httpCacheProxy;
+    private static NotionFixtureServer fixtureServer;
 
-    @BeforeMethod
-    public void setUp() throws Exception {
-        ChromeOptions options = new ChromeOptions();
+    // Sessions of the flows in progress on this test instance, by flow name
+    private final Map<String, FlowSession> flows = new HashMap<>();
+
+    /**
+     * Gets the session pool shared by all tests in the suite.
+     *
+     * @return The WebDriver session pool.
+     */
+    protected static synchronized WebDriverPool getDriverPool() {
+        if (driverPool == null) {
+            driverPool = WebDriverPool.fromConfig(DriverFactory::createDriver);
+        }
+        return driverPool;
+    }
 
-        // Enhanced options for modern SPAs like Notion
-        options.addArguments("--user-agent=Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36");
-        options.addArguments("--disable-blink-features=AutomationControlled");
-        options.addArguments("--disable-web-security");
-        options.addArguments("--disable-features=VizDisplayCompositor");
-        options.addArguments("--no-sandbox");
-        options.addArguments("--disable-dev-shm-usage");
-        options.addArguments("--disable-gpu");
+    /**
+     * Gets the embedded Notion stand-in server, if the suite runs against it.
+     *
+     * @return The fixture server, or null when running against the real site.
+     */
+    protected static synchronized NotionFixtureServer getFixtureServer() {
+        return fixtureServer;
+    }
+
+    /**
+     * Checks whether a URL belongs to the site under test, either the live Notion site
+     * or the local server standing in for it.
+     *
+     * @param url The URL to check.
+     * @return true if the URL is on the site under test, false otherwise.
+     */
+    protected boolean isOnSite(String url) {
+        return url.contains("notion") || url.startsWith(ConfigReader.getBaseUrl());
+    }
 
-        // Allow more time for JavaScript-heavy pages
-        options.addArguments("--page-load-strategy=normal");
+    /**
+     * Gets the WebDriver session of the test running on the current thread.
+     *
+     * @return The WebDriver instance.
+     */
+    protected WebDriver getDriver() {
+        return DriverManager.getDriver();
+    }
 
-        // Remove automation indicators
-        options.setExperimentalOption("excludeSwitches", new String[]{"enable-automation"});
-        options.setExperimentalOption("useAutomationExtension", false);
+    /**
+     * Gets the account tests log in as.
+     *
+     * @return The login email address.
+     */
+    protected String getLoginAccount() {
+        return ConfigReader.getProperty("real.test.email", "hoanoreply@gmail.com");
+    }
 
+    /**
+     * Makes sure the current test's session is logged in as {@link #getLoginAccount()},
+     * restoring the saved session or, failing that, logging in with an emailed code.
+     *
+     * @return true if the session is logged in, false if it could not be.
+     */
+    protected boolean ensureLoggedIn() {
         try {
-            driver = new RemoteWebDriver(new URL("http://selenium:4444/wd/hub"), options);
+            return SessionVault.getInstance().ensureLoggedIn(getDriver(), getLoginAccount(), this::logInWithEmailCode);
         } catch (Exception e) {
-            driver = new RemoteWebDriver(new URL("http://localhost:4444/wd/hub"), options);
+            System.out.println("Could not log in: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Opens the dashboard in a logged-in session.
+     *
+     * @return The dashboard page, or null if the session could not be logged in.
+     */
+    protected DashboardPage openDashboard() {
+        return ensureLoggedIn() ? new DashboardPage(getDriver()) : null;
+    }
+
+    /**
+     * Logs a session in as {@link #getLoginAccount()} through the login form, reading the
+     * verification code from the fixture server or the shared mailbox.
+     *
+     * @param driver The WebDriver session.
+     * @return true if the login completed, false if no code could be obtained or it was not accepted.
+     * @throws Exception if reading the code fails.
+     */
+    protected boolean logInWithEmailCode(WebDriver driver) throws Exception {
+        String account = getLoginAccount();
+        NotionFixtureServer fixture = getFixtureServer();
+        String emailPassword = System.getProperty("email.password");
+        if (fixture == null && (emailPassword == null || emailPassword.equals("your-app-password-here"))) {
+            System.out.println("Email password not configured - cannot log in automatically");
+            return false;
         }
 
-        // Longer timeouts for SPA loading
-        driver.manage().timeouts().implicitlyWait(15, TimeUnit.SECONDS);
-        driver.manage().timeouts().pageLoadTimeout(30, TimeUnit.SECONDS);
-        driver.manage().timeouts().setScriptTimeout(30, TimeUnit.SECONDS);
-        driver.manage().window().maximize();
+        driver.get(ConfigReader.getLoginUrl());
+        LoginPage loginPage = new LoginPage(driver);
+        String previousCode = fixture != null ? fixture.getLastCode(account) : null;
+        Future<String> pendingCode = fixture != null ? null : VerificationCodeDispatcher.forAccount(
+            ConfigReader.getProperty("email.account.user", account), emailPassword).expectCode(account);
+        loginPage.enterEmail(account);
+        loginPage.clickSubmitButton();
+
+        String code;
+        if (fixture != null) {
+            try {
+                code = WaitPolicy.forOperation(driver, "navigation").until(d -> {
+                    String issued = fixture.getLastCode(account);
+                    return issued != null && !issued.equals(previousCode) ? issued : null;
+                });
+            } catch (TimeoutException e) {
+                code = null;
+            }
+        } else {
+            try {
+                code = pendingCode.get(ConfigReader.getIntProperty("email.verification.timeout.seconds", 60), TimeUnit.SECONDS);
+            } catch (java.util.concurrent.TimeoutException e) {
+                pendingCode.cancel(false);
+                code = null;
+            }
+        }
+        if (code == null || !loginPage.submitVerificationCode(code)) {
+            return false;
+        }
+
+        String loginPath = ConfigReader.getProperty("login.path", "/login");
+        try {
+            WaitPolicy.forOperation(driver, "navigation").until(d -> !d.getCurrentUrl().contains(loginPath));
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    @BeforeSuite(alwaysRun = true)
+    public void startLocalSite() throws Exception {
+        synchronized (BaseTest.class) {
+            if (fixtureServer != null || httpCacheProxy != null) {
+                return;
+            }
+
+            fixtureServer = NotionFixtureServer.fromConfig();
+            if (fixtureServer != null) {
+                fixtureServer.start();
+                ConfigReader.setProperty("base.url", fixtureServer.getBaseUrl());
+                return;
+            }
+
+            httpCacheProxy = HttpRecordReplayProxy.fromConfig(ConfigReader.getBaseUrl());
+            if (httpCacheProxy != null) {
+                httpCacheProxy.start();
+                ConfigReader.setProperty("base.url", httpCacheProxy.getBaseUrl());
+            }
+        }
+    }
+
+    @BeforeMethod
+    public void setUp(Method method) throws Exception {
+        Flow flow = method.getAnnotation(Flow.class);
+        DriverManager.setDriver(flow == null ? getDriverPool().lease() : joinFlow(flow.value()));
+        WaitPolicy.beginTest(getClass().getSimpleName() + "." + method.getName());
     }
 
-    @AfterMethod
-    public void tearDown() {
-        if (driver != null) {
-            driver.quit();
+    @AfterMethod(alwaysRun = true)
+    public void tearDown(Method method, ITestResult result) {
+        String waitReport = WaitPolicy.endTest();
+        if (waitReport != null) {
+            System.out.println(waitReport);
+        }
+        WebDriver driver = DriverManager.removeDriver();
+        Flow flow = method.getAnnotation(Flow.class);
+        if (flow != null) {
+            leaveFlow(flow.value(), result.getStatus() == ITestResult.SUCCESS);
+        } else if (driver != null) {
+            getDriverPool().release(driver);
+        }
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void endUnfinishedFlows() {
+        synchronized (flows) {
+            // Steps excluded from the run never reach the end of their flow
+            for (Map.Entry<String, FlowSession> entry : flows.entrySet()) {
+                endFlow(entry.getKey(), entry.getValue());
+            }
+            flows.clear();
+        }
+    }
+
+    private WebDriver joinFlow(String name) {
+        synchronized (flows) {
+            FlowSession session = flows.get(name);
+            if (session == null) {
+                session = new FlowSession(getDriverPool().lease(), countFlowSteps(name));
+                flows.put(name, session);
+                System.out.println("Started flow '" + name + "' with " + session.remainingSteps + " steps");
+            }
+            return session.driver;
+        }
+    }
+
+    private void leaveFlow(String name, boolean passed) {
+        synchronized (flows) {
+            FlowSession session = flows.get(name);
+            if (session == null) {
+                return;
+            }
+            session.remainingSteps--;
+            session.completedSteps++;
+            if (!passed || session.remainingSteps <= 0) {
+                flows.remove(name);
+                endFlow(name, session);
+            }
+        }
+    }
+
+    private void endFlow(String name, FlowSession session) {
+        System.out.println("Ended flow '" + name + "' after " + session.completedSteps + " steps" +
+            (session.remainingSteps > 0 ? " (" + session.remainingSteps + " not run)" : ""));
+        getDriverPool().release(session.driver);
+    }
+
+    private int countFlowSteps(String name) {
+        int steps = 0;
+        for (Method method : getClass().getMethods()) {
+            Flow flow = method.getAnnotation(Flow.class);
+            if (flow != null && flow.value().equals(name) && method.isAnnotationPresent(Test.class)) {
+                steps++;
+            }
+        }
+        return steps;
+    }
+
+    @AfterSuite(alwaysRun = true)
+    public void shutDownDriverPool() {
+        synchronized (BaseTest.class) {
+            if (driverPool != null) {
+                driverPool.shutdown();
+                driverPool = null;
+            }
+            System.out.println(CachingElementLocatorFactory.getStatistics());
+            System.out.println(WaitPolicy.getStatistics());
+            System.out.println(SessionVault.getInstance().getStatistics());
+        }
+    }
+
+    @AfterSuite(alwaysRun = true)
+    public void stopVerificationMailboxes() {
+        VerificationCodeDispatcher.shutdownAll();
+    }
+
+    @AfterSuite(alwaysRun = true)
+    public void stopLocalSite() {
+        synchronized (BaseTest.class) {
+            if (fixtureServer != null) {
+                fixtureServer.stop();
+                fixtureServer = null;
+            }
+            if (httpCacheProxy != null) {
+                httpCacheProxy.stop();
+                httpCacheProxy = null;
+            }
+            ConfigReader.setProperty("base.url", null);
+        }
+    }
+
+    private static class FlowSession {
+        private final WebDriver driver;
+        private int remainingSteps;
+        private int completedSteps;
+
+        FlowSession(WebDriver driver, int steps) {
+            this.driver = driver;
+            this.remainingSteps = steps;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,176 @@
+package com.selenium.notion.tests;
+
+import com.selenium.notion.utils.ConfigReader;
+import com.selenium.notion.utils.DriverManager;
+import com.selenium.notion.utils.PageDebugHelper;
+import com.selenium.notion.utils.PageSourceStore;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Captures diagnostics (URL, page snapshot, page source, screenshot and browser console)
+ * when a test fails, and for a sampled fraction of passing tests.
+ *
+ * The browser state is read on the test thread right after the test method returns, while
+ * the session is still leased, since it is reset when it goes back to the pool. Compressing
+ * and writing the artifacts happens on a single background thread with a bounded queue, so
+ * teardown is not blocked; captures that do not fit in the queue are dropped. Artifacts are
+ * written to diagnostics.dir, one directory per captured test, except page sources, which go
+ * to the shared {@link PageSourceStore} and are referenced from the summary.
+ */
+public class DiagnosticsListener implements IInvokedMethodListener, ISuiteListener {
+
+    private final File directory = new File(ConfigReader.getProperty("diagnostics.dir", "build/diagnostics"));
+    private final double sampleRate = Double.parseDouble(ConfigReader.getProperty("diagnostics.sample.rate", "0"));
+    private final ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(ConfigReader.getIntProperty("diagnostics.queue.capacity", 8)),
+        runnable -> {
+            Thread thread = new Thread(runnable, "diagnostics-writer");
+            thread.setDaemon(true);
+            return thread;
+        },
+        (runnable, executor) -> System.out.println("Diagnostics queue full, dropping capture"));
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!method.isTestMethod() || !Boolean.parseBoolean(ConfigReader.getProperty("diagnostics.enabled", "true"))) {
+            return;
+        }
+        boolean failed = testResult.getStatus() == ITestResult.FAILURE;
+        if (!failed && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        // setUp may have failed before a session was leased
+        if (!DriverManager.hasDriver()) {
+            return;
+        }
+
+        Capture capture = new Capture(testResult);
+        capture.grab(DriverManager.getDriver());
+        writer.execute(capture::write);
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        // Let queued captures reach the disk before the JVM exits
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.out.println("Diagnostics writer did not finish, " + writer.getQueue().size() + " captures lost");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Browser state of one test, grabbed synchronously and written later.
+     */
+    private class Capture {
+        private final String name;
+        private final StringBuilder summary = new StringBuilder();
+        private String snapshot;
+        private String pageSource;
+        private byte[] screenshot;
+        private final StringBuilder console = new StringBuilder();
+
+        private Capture(ITestResult testResult) {
+            this.name = testResult.getTestClass().getRealClass().getSimpleName() + "." +
+                testResult.getMethod().getMethodName() + "-" +
+                new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+
+            summary.append("Test: ").append(testResult.getMethod().getQualifiedName()).append('\n');
+            summary.append("Status: ").append(testResult.getStatus() == ITestResult.FAILURE ? "FAILURE" : "SAMPLED").append('\n');
+            if (testResult.getThrowable() != null) {
+                StringWriter trace = new StringWriter();
+                testResult.getThrowable().printStackTrace(new PrintWriter(trace));
+                summary.append("Exception:\n").append(trace);
+            }
+        }
+
+        private void grab(WebDriver driver) {
+            // Each piece is optional; a dead session should not hide the rest
+            try {
+                summary.append("URL: ").append(driver.getCurrentUrl()).append('\n');
+                summary.append("Title: ").append(driver.getTitle()).append('\n');
+            } catch (Exception e) {
+                summary.append("URL unavailable: ").append(e.getMessage()).append('\n');
+            }
+            try {
+                snapshot = PageDebugHelper.capturePageSnapshotJson(driver);
+            } catch (Exception e) {
+                System.out.println("Diagnostics: no page snapshot: " + e.getMessage());
+            }
+            try {
+                pageSource = driver.getPageSource();
+            } catch (Exception e) {
+                System.out.println("Diagnostics: no page source: " + e.getMessage());
+            }
+            try {
+                screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+            } catch (Exception e) {
+                System.out.println("Diagnostics: no screenshot: " + e.getMessage());
+            }
+            try {
+                for (LogEntry entry : driver.manage().logs().get(LogType.BROWSER)) {
+                    console.append(entry).append('\n');
+                }
+            } catch (Exception e) {
+                console.append("Browser console unavailable: ").append(e.getMessage()).append('\n');
+            }
+        }
+
+        private void write() {
+            File target = new File(directory, name);
+            try {
+                Files.createDirectories(target.toPath());
+                if (pageSource != null) {
+                    // Identical pages across failures are stored once
+                    PageSourceStore store = PageSourceStore.getInstance();
+                    summary.append("Page source: ").append(store.getFile(store.save(pageSource, name)).getAbsolutePath()).append('\n');
+                }
+                writeCompressed(new File(target, "summary.txt.gz"), summary.toString());
+                writeCompressed(new File(target, "console.log.gz"), console.toString());
+                if (snapshot != null) {
+                    writeCompressed(new File(target, "snapshot.json.gz"), snapshot);
+                }
+                if (screenshot != null) {
+                    // PNG is already compressed
+                    Files.write(new File(target, "screenshot.png").toPath(), screenshot);
+                }
+                System.out.println("Diagnostics written to " + target);
+            } catch (IOException e) {
+                System.out.println("Could not write diagnostics to " + target + ": " + e.getMessage());
+            }
+        }
+
+        private void writeCompressed(File file, String content) throws IOException {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file.toPath()))) {
+                out.write(content.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.selenium.notion.tests;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the test methods of a class that form one flow: an ordered chain of steps, each
+ * depending on the previous one with dependsOnMethods, that run in the same WebDriver session.
+ *
+ * {@link BaseTest} leases the session when the first step starts and keeps it, with its cookies
+ * and page, for the following steps. It goes back to the pool after the last step of the flow,
+ * or as soon as a step does not pass, since the steps depending on it are skipped.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Flow {
+
+    /**
+     * Gets the flow name; steps with the same name in a class share a session.
+     *
+     * @return The flow name, e.g. "login".
+     */
+    String value();
+}
@@ -1,22 +1,72 @@
 package com.selenium.notion.tests;
 
 import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import org.testng.Assert;
 import org.testng.annotations.Test;
-import com.selenium.notion.utils.EmailVerificationHelper;
-import com.selenium.notion.utils.PageDebugHelper;
+import com.selenium.notion.utils.ConfigReader;
+import com.selenium.notion.utils.KeywordScanner;
 import com.selenium.notion.utils.SPAWaitHelper;
+import com.selenium.notion.utils.SessionVault;
+import com.selenium.notion.utils.VerificationCodeDispatcher;
+import com.selenium.notion.utils.WaitPolicy;
+
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class OtherTest extends BaseTest {
 
+    // Page text checked after submitting the login form, scanned in the browser in one pass
+    private static final KeywordScanner SUBMISSION_KEYWORDS = new KeywordScanner(
+        "verification", "code", "check your email", "sent", "enter the code", "not found", "invalid", "doesn't exist");
+
+    private static final KeywordScanner LOGIN_PAGE_KEYWORDS = new KeywordScanner("sign in", "continue with");
+
+    private static final String[] FORM_EMAIL_FIELD_XPATHS = {
+        "//input[@type='email']",
+        "//input[contains(@placeholder, 'email')]",
+        "//input[contains(@name, 'email')]",
+        "//input"
+    };
+    private static final String[] FORM_CONTINUE_BUTTON_XPATHS = {
+        "//button[contains(text(), 'Continue')]",
+        "//button[contains(text(), 'Continue with email')]",
+        "//button[@type='submit']"
+    };
+    private static final String[] VERIFICATION_CODE_FIELD_XPATHS = {
+        "//input[contains(@placeholder, 'code')]",
+        "//input[contains(@placeholder, 'verification')]",
+        "//input[@type='text']"
+    };
+    private static final String[] VERIFICATION_SUBMIT_BUTTON_XPATHS = {
+        "//button[contains(text(), 'Continue')]",
+        "//button[contains(text(), 'Verify')]",
+        "//button[@type='submit']"
+    };
+    private static final String[] PROFILE_MENU_XPATHS = {
+        "//button[contains(@aria-label, 'profile')]",
+        "//button[contains(@class, 'avatar')]",
+        "//img[contains(@alt, 'profile')]",
+        "//div[contains(@class, 'user')]"
+    };
+    private static final String[] LOGOUT_BUTTON_XPATHS = {
+        "//button[contains(text(), 'Log out')]",
+        "//a[contains(text(), 'Log out')]",
+        "//div[contains(text(), 'Log out')]",
+        "//*[contains(text(), 'Sign out')]"
+    };
+
     @Test(description = "Test form filling and submission")
     public void testFormFilling() {
+        WebDriver driver = getDriver();
         try {
-            driver.get("https://www.notion.so/login");
-            Thread.sleep(5000);
+            driver.get(ConfigReader.getLoginUrl());
+            SPAWaitHelper spaHelper = new SPAWaitHelper(driver, "page");
+            spaHelper.waitForPageToLoad();
 
             String currentUrl = driver.getCurrentUrl();
             String title = driver.getTitle();
@@ -26,33 +76,19 @@ public class OtherTest extends BaseTest {
             if (currentUrl.contains("unsupported-browser")) {
                 System.out.println("Still redirected to unsupported browser page");
                 // Test basic page access instead
-                Assert.assertTrue(currentUrl.contains("notion"), "Should be on Notion domain");
+                Assert.assertTrue(isOnSite(currentUrl), "Should be on Notion domain");
                 System.out.println("PASS: Form filling test passed (page access validated)");
                 return;
             }
 
-            // Try to find email input field
-            WebElement emailField = null;
-            try {
-                emailField = driver.findElement(By.xpath("//input[@type='email']"));
-            } catch (Exception e1) {
-                try {
-                    emailField = driver.findElement(By.xpath("//input[contains(@placeholder, 'email')]"));
-                } catch (Exception e2) {
-                    try {
-                        emailField = driver.findElement(By.xpath("//input[contains(@name, 'email')]"));
-                    } catch (Exception e3) {
-                        try {
-                            emailField = driver.findElement(By.xpath("//input[1]"));
-                        } catch (Exception e4) {
-                            // FAIL the test if we can't find any email input
-                            System.out.println("FAIL: No email input field found on login page");
-                            System.out.println("Expected: Login page should have email input field for form testing");
-                            System.out.println("Actual: No input fields detected");
-                            Assert.fail("Login page should have email input field for form filling test. Cannot test form functionality without forms.");
-                        }
-                    }
-                }
+            // Wait for the email input field, the SPA renders the form after loading
+            WebElement emailField = spaHelper.waitForElementWithMultipleStrategies(FORM_EMAIL_FIELD_XPATHS, "form email field");
+            if (emailField == null) {
+                // FAIL the test if we can't find any email input
+                System.out.println("FAIL: No email input field found on login page");
+                System.out.println("Expected: Login page should have email input field for form testing");
+                System.out.println("Actual: No input fields detected");
+                Assert.fail("Login page should have email input field for form filling test. Cannot test form functionality without forms.");
             }
 
             // Fill the email field with test data
@@ -60,37 +96,38 @@ public class OtherTest extends BaseTest {
             emailField.sendKeys("testuser@example.com");
             System.out.println("Successfully filled email field");
 
-            Thread.sleep(1000);
-
             // Try to find continue button (Notion doesn't use password fields)
-            try {
-                WebElement continueButton = driver.findElement(By.xpath("//button[contains(text(), 'Continue')] | //button[contains(text(), 'Continue with email')] | //button[@type='submit']"));
+            WebElement continueButton = new SPAWaitHelper(driver, "click")
+                .waitForElementWithMultipleStrategies(FORM_CONTINUE_BUTTON_XPATHS, "form continue button");
+            if (continueButton != null) {
+                spaHelper.installNetworkMonitor();
                 continueButton.click();
                 System.out.println("Successfully clicked continue button (email verification flow)");
 
-                Thread.sleep(3000);
+                // Wait for the submission request to be answered and the result rendered
+                spaHelper.waitForNetworkIdle(500, 0);
 
                 // Check that form was processed
                 String newUrl = driver.getCurrentUrl();
-                String pageSource = driver.getPageSource().toLowerCase();
+                KeywordScanner.Result pageText = SUBMISSION_KEYWORDS.scanPageText(driver);
                 System.out.println("After form submission, URL: " + newUrl);
 
                 // Success indicators for email verification flow
-                if (pageSource.contains("verification") || pageSource.contains("code") || pageSource.contains("check your email")) {
+                if (pageText.containsAny("verification", "code", "check your email")) {
                     System.out.println("SUCCESS: Reached email verification step");
-                } else if (pageSource.contains("not found") || pageSource.contains("invalid")) {
+                } else if (pageText.containsAny("not found", "invalid")) {
                     System.out.println("INFO: Email validation working - test email correctly rejected");
                 } else {
                     System.out.println("Form processed successfully");
                 }
 
-            } catch (Exception e) {
+            } else {
                 System.out.println("Continue button not found, but email field interaction was successful");
                 System.out.println("NOTE: Notion uses email verification, not traditional password forms");
             }
 
             // Success if we could interact with form elements
-            Assert.assertTrue(currentUrl.contains("notion"), "Should be on Notion domain");
+            Assert.assertTrue(isOnSite(currentUrl), "Should be on Notion domain");
             System.out.println("PASS: Form filling test passed");
 
         } catch (Exception e) {
@@ -100,15 +137,17 @@ public class OtherTest extends BaseTest {
         }
     }
 
+    @Flow("login")
     @Test(description = "Test real user login with email verification")
     public void testRealLogin() {
+        WebDriver driver = getDriver();
         try {
             System.out.println("=== STARTING ENHANCED NOTION LOGIN TEST ===");
 
-            driver.get("https://www.notion.so/login");
+            driver.get(ConfigReader.getLoginUrl());
 
             // Initialize SPA helper
-            SPAWaitHelper spaHelper = new SPAWaitHelper(driver, 20);
+            SPAWaitHelper spaHelper = new SPAWaitHelper(driver, "spa");
 
             // Wait for modern SPA to load
             spaHelper.waitForPageToLoad();
@@ -128,15 +167,11 @@ public class OtherTest extends BaseTest {
                 System.out.println("WARNING: Traditional web page detected");
             }
 
-            // Debug page structure
-            PageDebugHelper.debugPageStructure(driver);
-            PageDebugHelper.savePageSource(driver, "notion-login.html");
-
             // Check if we're still getting redirected to unsupported browser
             if (currentUrl.contains("unsupported-browser")) {
                 System.out.println("Browser redirected to unsupported page - cannot test real login");
                 System.out.println("SKIPPING: Real login test requires modern browser support");
-                Assert.assertTrue(currentUrl.contains("notion"), "Should at least reach Notion domain");
+                Assert.assertTrue(isOnSite(currentUrl), "Should at least reach Notion domain");
                 return;
             }
 
@@ -154,12 +189,14 @@ public class OtherTest extends BaseTest {
                 Assert.fail("Login page should have email input field for real login testing. Page may have changed, login is not accessible, or requires different browser detection.");
             }
 
-            // Enter email address
+            // Enter email address, tagged per login when parallel logins share the mailbox
+            String loginEmail = getLoginAccount();
+            if (Boolean.parseBoolean(ConfigReader.getProperty("email.plus.addressing", "false"))) {
+                loginEmail = VerificationCodeDispatcher.plusAddress(loginEmail, UUID.randomUUID().toString().substring(0, 8));
+            }
             emailField.clear();
-            emailField.sendKeys("hoanoreply@gmail.com"); // Use the updated email from config
-            System.out.println("SUCCESS: Entered email: hoanoreply@gmail.com");
-
-            Thread.sleep(1000);
+            emailField.sendKeys(loginEmail);
+            System.out.println("SUCCESS: Entered email: " + loginEmail);
 
             // Use smart waiting to find submit button
             WebElement continueButton = spaHelper.waitForSubmitButton();
@@ -172,6 +209,7 @@ public class OtherTest extends BaseTest {
                 Assert.fail("Login form should have submit button to complete email verification flow.");
             }
 
+            long codeRequestedAt = System.currentTimeMillis();
             continueButton.click();
             System.out.println("SUCCESS: Clicked continue button - email verification code should be sent");
 
@@ -188,23 +226,17 @@ public class OtherTest extends BaseTest {
             // Check what happens after email submission
             String newUrl = driver.getCurrentUrl();
             String newTitle = driver.getTitle();
-            String pageSource = driver.getPageSource().toLowerCase();
+            KeywordScanner.Result pageText = SUBMISSION_KEYWORDS.scanPageText(driver);
 
             System.out.println("After email submission - URL: " + newUrl + ", Title: " + newTitle);
 
-            // Debug the new page state
-            if (!newUrl.equals(originalUrl)) {
-                System.out.println("=== POST-SUBMISSION PAGE DEBUG ===");
-                PageDebugHelper.debugPageStructure(driver);
-            }
-
             // Check for verification code step
             boolean verificationStepReached = false;
 
-            if (pageSource.contains("verification") || pageSource.contains("code") || pageSource.contains("check your email")) {
+            if (pageText.containsAny("verification", "code", "check your email")) {
                 verificationStepReached = true;
                 System.out.println("SUCCESS: Reached email verification step");
-            } else if (pageSource.contains("sent") || pageSource.contains("enter the code")) {
+            } else if (pageText.containsAny("sent", "enter the code")) {
                 verificationStepReached = true;
                 System.out.println("SUCCESS: Email verification code sent");
             } else if (!newUrl.equals(currentUrl)) {
@@ -218,31 +250,61 @@ public class OtherTest extends BaseTest {
 
                 // Attempt automated verification code retrieval
                 String emailPassword = System.getProperty("email.password");
-                if (emailPassword != null && !emailPassword.equals("your-app-password-here")) {
-                    System.out.println("Attempting automated email verification...");
+                if (getFixtureServer() != null || (emailPassword != null && !emailPassword.equals("your-app-password-here"))) {
+                    String verificationCode;
+                    if (getFixtureServer() != null) {
+                        // The stand-in server issues codes without sending mail
+                        verificationCode = getFixtureServer().getLastCode(loginEmail);
+                    } else {
+                        System.out.println("Attempting automated email verification...");
 
-                    EmailVerificationHelper emailHelper = new EmailVerificationHelper("sodoo009@student.elte.hu", emailPassword);
-                    String verificationCode = emailHelper.getNotionVerificationCode(60);
+                        // One shared mailbox connection serves the codes of all concurrent logins
+                        VerificationCodeDispatcher dispatcher = VerificationCodeDispatcher.forAccount(
+                            ConfigReader.getProperty("email.account.user", loginEmail), emailPassword);
+                        Future<String> pendingCode = dispatcher.expectCode(loginEmail, codeRequestedAt);
+                        try {
+                            verificationCode = pendingCode.get(
+                                ConfigReader.getIntProperty("email.verification.timeout.seconds", 60), TimeUnit.SECONDS);
+                        } catch (TimeoutException e) {
+                            pendingCode.cancel(false);
+                            verificationCode = null;
+                        }
+                    }
 
                     if (verificationCode != null) {
                         // Enter the verification code
                         try {
-                            WebElement codeField = driver.findElement(By.xpath("//input[@type='text'] | //input[contains(@placeholder, 'code')] | //input[contains(@placeholder, 'verification')]"));
+                            WebElement codeField = spaHelper.waitForElementWithMultipleStrategies(
+                                VERIFICATION_CODE_FIELD_XPATHS, "verification code field");
+                            if (codeField == null) {
+                                throw new IllegalStateException("verification code field not found");
+                            }
                             codeField.clear();
                             codeField.sendKeys(verificationCode);
                             System.out.println("Entered verification code: " + verificationCode);
 
                             // Submit the code
-                            WebElement submitCodeButton = driver.findElement(By.xpath("//button[contains(text(), 'Continue')] | //button[contains(text(), 'Verify')] | //button[@type='submit']"));
+                            WebElement submitCodeButton = new SPAWaitHelper(driver, "click")
+                                .waitForElementWithMultipleStrategies(VERIFICATION_SUBMIT_BUTTON_XPATHS, "verification submit button");
+                            if (submitCodeButton == null) {
+                                throw new IllegalStateException("verification submit button not found");
+                            }
+                            spaHelper.installNetworkMonitor();
                             submitCodeButton.click();
                             System.out.println("Submitted verification code");
 
-                            Thread.sleep(5000);
+                            // Wait for the verification request and the workspace data to finish loading
+                            spaHelper.waitForNetworkIdle(500, 0);
 
                             // Check if login completed
                             String finalUrl = driver.getCurrentUrl();
                             if (finalUrl.contains("/dashboard") || finalUrl.contains("/workspace") || !finalUrl.contains("/login")) {
                                 System.out.println("FULL LOGIN SUCCESS: Automated email verification completed!");
+                                // Later tests start from this session instead of logging in again. A tagged
+                                // address is its own account, so only the untagged login is saved for them.
+                                if (loginEmail.equals(getLoginAccount())) {
+                                    SessionVault.getInstance().save(driver, loginEmail);
+                                }
                                 Assert.assertTrue(true, "Successfully completed full automated login with email verification");
                                 return;
                             }
@@ -262,13 +324,13 @@ public class OtherTest extends BaseTest {
                 Assert.assertTrue(true, "Successfully initiated email verification flow");
             } else {
                 // Check if email is invalid/unknown
-                if (pageSource.contains("not found") || pageSource.contains("invalid") || pageSource.contains("doesn't exist")) {
+                if (pageText.containsAny("not found", "invalid", "doesn't exist")) {
                     System.out.println("INFO: Email address not found in Notion - this is expected for test credentials");
                     System.out.println("PASS: Login flow works correctly - email validation functioning");
                     Assert.assertTrue(true, "Login flow correctly validates email addresses");
                 } else {
                     System.out.println("PASS: Login page interaction successful (email verification requires manual completion)");
-                    Assert.assertTrue(currentUrl.contains("notion"), "Successfully interacted with Notion login");
+                    Assert.assertTrue(isOnSite(currentUrl), "Successfully interacted with Notion login");
                 }
             }
 
@@ -284,40 +346,50 @@ public class OtherTest extends BaseTest {
         }
     }
 
+    @Flow("login")
     @Test(description = "Test logout", dependsOnMethods = "testRealLogin")
     public void testLogout() {
+        WebDriver driver = getDriver();
         try {
+            // Continue in testRealLogin's session; if it did not get past the verification
+            // step, start from the saved session, logging in again if it is missing or rejected
+            if (ensureLoggedIn()) {
+                System.out.println("Logged in as " + getLoginAccount());
+            }
+
             String currentUrl = driver.getCurrentUrl();
             System.out.println("Starting logout test from URL: " + currentUrl);
 
             // Check if we're on an authenticated page first
             if (currentUrl.contains("unsupported-browser") || currentUrl.contains("/login")) {
                 System.out.println("Not logged in, skipping logout test");
-                Assert.assertTrue(currentUrl.contains("notion"), "Should still be on Notion domain");
+                Assert.assertTrue(isOnSite(currentUrl), "Should still be on Notion domain");
                 return;
             }
 
-            // Try to find logout/profile menu
+            // Try to find logout/profile menu, each lookup waiting within the click budget
             boolean logoutAttempted = false;
-            try {
-                // Look for user menu/profile dropdown
-                WebElement userMenu = driver.findElement(By.xpath("//button[contains(@aria-label, 'profile')] | //div[contains(@class, 'user')] | //button[contains(@class, 'avatar')] | //img[contains(@alt, 'profile')]"));
+            SPAWaitHelper clickWait = new SPAWaitHelper(driver, "click");
+            WebElement userMenu = clickWait.waitForElementWithMultipleStrategies(PROFILE_MENU_XPATHS, "profile menu");
+            if (userMenu != null) {
                 userMenu.click();
                 System.out.println("Clicked user profile menu");
-                Thread.sleep(2000);
 
-                // Look for logout option
-                WebElement logoutButton = driver.findElement(By.xpath("//button[contains(text(), 'Log out')] | //a[contains(text(), 'Log out')] | //div[contains(text(), 'Log out')] | //*[contains(text(), 'Sign out')]"));
-                logoutButton.click();
-                System.out.println("Clicked logout button");
-                logoutAttempted = true;
+                // Look for logout option in the opened menu
+                WebElement logoutButton = clickWait.waitForElementWithMultipleStrategies(LOGOUT_BUTTON_XPATHS, "logout button");
+                if (logoutButton != null) {
+                    logoutButton.click();
+                    System.out.println("Clicked logout button");
+                    logoutAttempted = true;
+                }
+            }
 
-            } catch (Exception e) {
+            if (!logoutAttempted) {
                 System.out.println("Could not find profile menu, trying direct logout URL");
 
                 // Try direct logout URL
                 try {
-                    driver.get("https://www.notion.so/logout");
+                    driver.get(ConfigReader.getLogoutUrl());
                     System.out.println("Navigated to logout URL");
                     logoutAttempted = true;
                 } catch (Exception ex) {
@@ -326,28 +398,34 @@ public class OtherTest extends BaseTest {
             }
 
             if (logoutAttempted) {
-                Thread.sleep(3000);
+                // Logging out ends the saved session on the server as well
+                SessionVault.getInstance().invalidate(getLoginAccount());
+                new SPAWaitHelper(driver, "navigation").waitForUrlToChange(currentUrl, 10);
 
                 // Verify logout by checking if we can access login page
-                driver.get("https://www.notion.so/login");
-                Thread.sleep(2000);
+                driver.get(ConfigReader.getLoginUrl());
+                try {
+                    WaitPolicy.forOperation(driver, "page").until(d -> d.getCurrentUrl().contains("/login") ||
+                        LOGIN_PAGE_KEYWORDS.scanPageText(d).containsAny("sign in", "continue with"));
+                } catch (org.openqa.selenium.TimeoutException e) {
+                    System.out.println("Login page did not settle: " + e.getMessage());
+                }
 
                 String newUrl = driver.getCurrentUrl();
-                String pageSource = driver.getPageSource().toLowerCase();
+                KeywordScanner.Result pageText = LOGIN_PAGE_KEYWORDS.scanPageText(driver);
 
                 System.out.println("After logout, login page URL: " + newUrl);
 
                 // Success if we can access login page without being redirected to dashboard
                 boolean logoutSuccessful = newUrl.contains("/login") ||
-                                          pageSource.contains("sign in") ||
-                                          pageSource.contains("continue with");
+                                          pageText.containsAny("sign in", "continue with");
 
                 Assert.assertTrue(logoutSuccessful, "Should be able to access login page after logout");
                 System.out.println("PASS: Logout test passed");
             } else {
                 System.out.println("Could not attempt logout - no logout mechanism found");
                 // Don't fail the test if logout mechanism isn't found
-                Assert.assertTrue(currentUrl.contains("notion"), "Should still be on Notion domain");
+                Assert.assertTrue(isOnSite(currentUrl), "Should still be on Notion domain");
             }
 
         } catch (Exception e) {
@@ -359,9 +437,10 @@ public class OtherTest extends BaseTest {
 
     @Test(description = "Test static page")
     public void testStaticPage() {
+        WebDriver driver = getDriver();
         try {
-            driver.get("https://www.notion.so/about");
-            Thread.sleep(3000);
+            driver.get(ConfigReader.getAboutUrl());
+            new SPAWaitHelper(driver, "page").waitForPageToLoad();
 
             String title = driver.getTitle();
             String currentUrl = driver.getCurrentUrl();
@@ -371,10 +450,11 @@ public class OtherTest extends BaseTest {
             Assert.assertTrue(title.toLowerCase().contains("notion") ||
                              title.toLowerCase().contains("about") ||
                              currentUrl.contains("about") ||
-                             currentUrl.contains("notion"));
+                             isOnSite(currentUrl));
 
             // Check for any visible element (very permissive)
-            WebElement element = driver.findElement(By.xpath("//h1 | //h2 | //h3 | //div | //main | //section | //article | //p | //span"));
+            WebElement element = WaitPolicy.forOperation(driver, "page").until(ExpectedConditions.visibilityOfElementLocated(
+                By.xpath("//h1 | //h2 | //h3 | //div | //main | //section | //article | //p | //span")));
             Assert.assertTrue(element.isDisplayed());
 
             System.out.println("PASS: Static page test passed");
@@ -387,14 +467,14 @@ public class OtherTest extends BaseTest {
 
     @Test(description = "Test complex XPath")
     public void testComplexXPath() {
+        WebDriver driver = getDriver();
         try {
-            driver.get("https://www.notion.so");
-            Thread.sleep(3000);
+            driver.get(ConfigReader.getBaseUrl());
 
             // Complex XPath for navigation or header elements
-            WebElement element = driver.findElement(By.xpath(
+            WebElement element = WaitPolicy.forOperation(driver, "page").until(ExpectedConditions.visibilityOfElementLocated(By.xpath(
                 "//header//nav//a | //header//button | //nav//a[contains(@href, 'login')] | //nav//a[contains(@href, 'signup')] | //div[contains(@class, 'nav')]//a | //header//a"
-            ));
+            )));
 
             Assert.assertTrue(element.isDisplayed());
             System.out.println("PASS: Complex XPath test passed");
@@ -407,9 +487,14 @@ public class OtherTest extends BaseTest {
 
     @Test(description = "Test page title reading")
     public void testPageTitle() {
+        WebDriver driver = getDriver();
         try {
-            driver.get("https://www.notion.so");
-            Thread.sleep(2000);
+            driver.get(ConfigReader.getBaseUrl());
+            try {
+                WaitPolicy.forOperation(driver, "page").until(ExpectedConditions.titleContains("Notion"));
+            } catch (org.openqa.selenium.TimeoutException e) {
+                System.out.println("Title did not mention Notion in time");
+            }
 
             String title = driver.getTitle();
             System.out.println("Homepage title: " + title);
@@ -426,11 +511,11 @@ public class OtherTest extends BaseTest {
 
     @Test(description = "Test explicit wait")
     public void testExplicitWait() {
+        WebDriver driver = getDriver();
         try {
-            driver.get("https://www.notion.so");
+            driver.get(ConfigReader.getBaseUrl());
 
-            WebDriverWait wait = new WebDriverWait(driver, 10);
-            WebElement element = wait.until(ExpectedConditions.visibilityOfElementLocated(
+            WebElement element = WaitPolicy.forOperation(driver, "navigation").until(ExpectedConditions.visibilityOfElementLocated(
                 By.xpath("//h1 | //header | //nav | //div | //main")
             ));
 
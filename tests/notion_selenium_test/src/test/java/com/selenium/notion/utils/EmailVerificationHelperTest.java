@@ -0,0 +1,124 @@
+package com.selenium.notion.utils;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests {@link EmailVerificationHelper} against an embedded GreenMail IMAP server; no browser
+ * or real mailbox is involved. The server listens on fixed test ports and the tests change the
+ * wait mode, so they run one at a time even in parallel suites.
+ */
+@Test(singleThreaded = true)
+public class EmailVerificationHelperTest {
+
+    private static final String ACCOUNT = "tester@localhost";
+    private static final String PASSWORD = "secret";
+    private static final String SUBJECT = "Your Notion login code";
+    private static final String SENDER = "notify@mail.notion.so";
+
+    private GreenMail greenMail;
+    private ScheduledExecutorService sender;
+
+    @BeforeMethod
+    public void startMailServer() {
+        greenMail = new GreenMail(ServerSetupTest.SMTP_IMAP);
+        greenMail.start();
+        greenMail.setUser(ACCOUNT, ACCOUNT, PASSWORD);
+        sender = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void stopMailServer() {
+        sender.shutdownNow();
+        greenMail.stop();
+        ConfigReader.setProperty("email.wait.mode", null);
+        ConfigReader.setProperty("email.poll.interval.millis", null);
+    }
+
+    @Test(description = "IMAP IDLE returns the code as soon as the email is delivered")
+    public void testIdleWakesUpOnDelivery() {
+        ConfigReader.setProperty("email.wait.mode", "idle");
+        // Polling this slowly could not deliver the code within the asserted time
+        ConfigReader.setProperty("email.poll.interval.millis", "60000");
+        EmailVerificationHelper helper = newHelper();
+
+        deliverCodeAfter("Your login code: 482913", 1000);
+        long start = System.currentTimeMillis();
+        String code = helper.getNotionVerificationCode(30);
+        long elapsed = System.currentTimeMillis() - start;
+
+        Assert.assertEquals(code, "482913");
+        Assert.assertTrue(elapsed < 10000, "IDLE should wake up on delivery, took " + elapsed + " ms");
+    }
+
+    @Test(description = "email.wait.mode=poll finds the code by polling the inbox")
+    public void testPollModeFindsCode() {
+        ConfigReader.setProperty("email.wait.mode", "poll");
+        ConfigReader.setProperty("email.poll.interval.millis", "200");
+        EmailVerificationHelper helper = newHelper();
+
+        deliverCodeAfter("Your login code: 731604", 1000);
+        long start = System.currentTimeMillis();
+        String code = helper.getNotionVerificationCode(30);
+        long elapsed = System.currentTimeMillis() - start;
+
+        Assert.assertEquals(code, "731604");
+        Assert.assertTrue(elapsed < 10000, "Polling every 200 ms should find the code quickly, took " + elapsed + " ms");
+    }
+
+    @Test(description = "No code within the timeout returns null")
+    public void testTimeoutReturnsNull() {
+        ConfigReader.setProperty("email.wait.mode", "idle");
+        EmailVerificationHelper helper = newHelper();
+
+        long start = System.currentTimeMillis();
+        String code = helper.getNotionVerificationCode(2);
+        long elapsed = System.currentTimeMillis() - start;
+
+        Assert.assertNull(code);
+        Assert.assertTrue(elapsed >= 2000, "Should wait for the whole timeout, took " + elapsed + " ms");
+        Assert.assertTrue(elapsed < 10000, "Should stop waiting at the timeout, took " + elapsed + " ms");
+    }
+
+    @Test(description = "A code that was already returned is not returned again")
+    public void testCodeIsReturnedOnce() {
+        ConfigReader.setProperty("email.wait.mode", "poll");
+        ConfigReader.setProperty("email.poll.interval.millis", "200");
+        EmailVerificationHelper helper = newHelper();
+
+        GreenMailUtil.sendTextEmailTest(ACCOUNT, SENDER, SUBJECT, "Your login code: 111111");
+        Assert.assertEquals(helper.getNotionVerificationCode(10), "111111");
+        Assert.assertNull(helper.getNotionVerificationCode(1));
+    }
+
+    @Test(description = "When a resend delivers two codes together, the newest one is returned")
+    public void testNewestCodeWinsInOneBatch() {
+        ConfigReader.setProperty("email.wait.mode", "poll");
+        ConfigReader.setProperty("email.poll.interval.millis", "200");
+        EmailVerificationHelper helper = newHelper();
+
+        GreenMailUtil.sendTextEmailTest(ACCOUNT, SENDER, SUBJECT, "Your login code: 222222");
+        GreenMailUtil.sendTextEmailTest(ACCOUNT, SENDER, SUBJECT, "Your login code: 333333");
+        Assert.assertTrue(greenMail.waitForIncomingEmail(5000, 2));
+
+        Assert.assertEquals(helper.getNotionVerificationCode(10), "333333");
+    }
+
+    private EmailVerificationHelper newHelper() {
+        return new EmailVerificationHelper(ACCOUNT, PASSWORD, "localhost", greenMail.getImap().getPort(), false);
+    }
+
+    private void deliverCodeAfter(String body, long delayMillis) {
+        sender.schedule(() -> GreenMailUtil.sendTextEmailTest(ACCOUNT, SENDER, SUBJECT, body),
+            delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
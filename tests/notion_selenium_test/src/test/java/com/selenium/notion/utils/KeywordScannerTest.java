@@ -0,0 +1,134 @@
+package com.selenium.notion.utils;
+
+import org.openqa.selenium.json.Json;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link KeywordScanner} and its in-browser counterpart scripts/keyword-scanner.js;
+ * no browser is involved.
+ */
+public class KeywordScannerTest {
+
+    // Positions kept per keyword by the in-browser scan
+    private static final int BROWSER_POSITIONS = 100;
+
+    @DataProvider
+    public Object[][] cases() {
+        return new Object[][] {
+            // Nested keywords, each ending inside a longer one
+            {new String[] {"code", "the code", "enter the code", "verification code"},
+                "Please enter the verification code below, or enter the code from the app."},
+            // The classic overlapping set: "she" contains "he", "hers" starts inside "ushers"
+            {new String[] {"he", "she", "his", "hers"}, "ushers said his shell hers"},
+            // Self-overlapping keywords
+            {new String[] {"a", "aa", "aaa"}, "baaaab aa"},
+            // Case folding of text and keywords
+            {new String[] {"Sign In", "CONTINUE with"}, "SIGN IN or Continue With Google; sign in"},
+            // Nothing to find
+            {new String[] {"logout", "sign out"}, "Welcome to your workspace"}
+        };
+    }
+
+    @Test(dataProvider = "cases", description = "Every occurrence is found, like a naive search ignoring case")
+    public void testFindsEveryOccurrence(String[] keywords, String text) {
+        KeywordScanner.Result result = new KeywordScanner(keywords).scan(text);
+
+        for (String keyword : keywords) {
+            List<Integer> expected = naiveSearch(keyword, text);
+            Assert.assertEquals(result.getPositions(keyword), expected, keyword);
+            Assert.assertEquals(result.contains(keyword), !expected.isEmpty(), keyword);
+        }
+    }
+
+    @Test(description = "Keywords inside longer ones are reported at their own position")
+    public void testNestedKeywords() {
+        KeywordScanner scanner = new KeywordScanner("code", "enter the code", "verification code");
+        KeywordScanner.Result result = scanner.scan("Enter the verification code: 123456");
+
+        Assert.assertEquals(result.getPositions("verification code"), Arrays.asList(10));
+        Assert.assertEquals(result.getPositions("code"), Arrays.asList(23));
+        Assert.assertFalse(result.contains("enter the code"));
+        Assert.assertTrue(result.containsAny("sign in", "enter the code", "code"));
+    }
+
+    @Test(description = "Lookups ignore case and the matched keywords are reported in lower case")
+    public void testCaseFolding() {
+        KeywordScanner.Result result = new KeywordScanner("Sign In").scan("please SIGN IN");
+
+        Assert.assertTrue(result.contains("sign in"));
+        Assert.assertEquals(result.getPositions("SIGN IN"), Arrays.asList(7));
+        Assert.assertEquals(result.getMatchedKeywords(), new HashSet<>(Arrays.asList("sign in")));
+    }
+
+    @Test(description = "The capped scan keeps the first positions of each keyword")
+    public void testPositionCap() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 150; i++) {
+            text.append("code ");
+        }
+        KeywordScanner scanner = new KeywordScanner("code");
+
+        List<Integer> capped = scanner.scan(text, BROWSER_POSITIONS).getPositions("code");
+        Assert.assertEquals(capped.size(), BROWSER_POSITIONS);
+        Assert.assertEquals((int) capped.get(0), 0);
+        Assert.assertEquals((int) capped.get(BROWSER_POSITIONS - 1), 5 * (BROWSER_POSITIONS - 1));
+        Assert.assertEquals(scanner.scan(text).getPositions("code").size(), 150);
+    }
+
+    @Test(dataProvider = "cases", description = "The in-browser script finds the same positions as the Java scanner")
+    public void testScriptMatchesJavaScanner(String[] keywords, String text) throws Exception {
+        KeywordScanner.Result expected = new KeywordScanner(keywords).scan(text, BROWSER_POSITIONS);
+
+        Map<String, Object> hits = runScript(keywords, text);
+
+        Assert.assertEquals(hits.keySet(), expected.getMatchedKeywords());
+        for (Map.Entry<String, Object> entry : hits.entrySet()) {
+            List<Integer> positions = new ArrayList<>();
+            for (Object position : (List<?>) entry.getValue()) {
+                positions.add(((Number) position).intValue());
+            }
+            Assert.assertEquals(positions, expected.getPositions(entry.getKey()), entry.getKey());
+        }
+    }
+
+    /**
+     * Runs scripts/keyword-scanner.js in the JVM's JavaScript engine, when it has one (Java 8 to 14).
+     * Like KeywordScanner, the caller passes lower case keywords.
+     */
+    private static Map<String, Object> runScript(String[] keywords, String text) throws Exception {
+        ScriptEngine engine = new ScriptEngineManager().getEngineByName("javascript");
+        if (engine == null) {
+            throw new SkipException("No JavaScript engine in this JVM");
+        }
+        List<String> lowerCase = new ArrayList<>();
+        for (String keyword : keywords) {
+            lowerCase.add(keyword.toLowerCase());
+        }
+        Json json = new Json();
+        Object result = engine.eval(BrowserScripts.get("keyword-scanner.js") +
+            "JSON.stringify(scanKeywords(" + json.toJson(text) + ", " + json.toJson(lowerCase) + ", " +
+            BROWSER_POSITIONS + "));");
+        return json.toType((String) result, Json.MAP_TYPE);
+    }
+
+    private static List<Integer> naiveSearch(String keyword, String text) {
+        List<Integer> positions = new ArrayList<>();
+        String lowerText = text.toLowerCase();
+        String lowerKeyword = keyword.toLowerCase();
+        for (int i = lowerText.indexOf(lowerKeyword); i >= 0; i = lowerText.indexOf(lowerKeyword, i + 1)) {
+            positions.add(i);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,135 @@
+package com.selenium.notion.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Unit tests for {@link LocatorStrategyCache}; no browser is involved.
+ */
+public class LocatorStrategyCacheTest {
+
+    private static final String URL = "https://www.notion.so/login";
+    private static final String FIELD = "login email field";
+    private static final String[] CANDIDATES = {
+        "//input[@type='email']",
+        "//input[contains(@placeholder, 'email')]",
+        "//input[@name='email']",
+        "//input",
+        "//form//input"
+    };
+
+    private File file;
+    private LocatorStrategyCache cache;
+
+    @BeforeMethod
+    public void createCache() throws IOException {
+        file = File.createTempFile("locator-cache-", ".json");
+        file.delete();
+        cache = new LocatorStrategyCache(file, 14);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteCache() {
+        file.delete();
+    }
+
+    @Test(description = "Candidates without history keep their default order")
+    public void testUnknownPageKeepsDefaultOrder() {
+        Assert.assertEquals(cache.order(URL, FIELD, CANDIDATES), CANDIDATES);
+    }
+
+    @Test(description = "The locator that keeps winning moves to the front")
+    public void testWinnerIsRankedFirst() {
+        for (int i = 0; i < 3; i++) {
+            String[] ordered = cache.order(URL, FIELD, CANDIDATES);
+            cache.recordSuccess(URL, FIELD, ordered, indexOf(ordered, "//input[@name='email']"), 20);
+        }
+
+        String[] ordered = cache.order(URL, FIELD, CANDIDATES);
+        Assert.assertEquals(ordered[0], "//input[@name='email']");
+        // The locators tried before it failed and follow in their default order
+        Assert.assertEquals(ordered[1], "//input[@type='email']");
+        Assert.assertEquals(ordered[2], "//input[contains(@placeholder, 'email')]");
+    }
+
+    @Test(description = "Between equally successful locators the faster one comes first")
+    public void testLatencyBreaksTies() {
+        String[] candidates = {"//input[@id='a']", "//input[@id='b']"};
+        cache.recordSuccess(URL, FIELD, new String[] {"//input[@id='a']"}, 0, 400);
+        cache.recordSuccess(URL, FIELD, new String[] {"//input[@id='b']"}, 0, 50);
+
+        Assert.assertEquals(cache.order(URL, FIELD, candidates), new String[] {"//input[@id='b']", "//input[@id='a']"});
+    }
+
+    @Test(description = "Recent outcomes outweigh older ones")
+    public void testRecentWinsOvertakeOlderOnes() {
+        String[] candidates = {"//input[@id='old']", "//input[@id='new']"};
+        for (int i = 0; i < 5; i++) {
+            cache.recordSuccess(URL, FIELD, candidates, 0, 20);
+        }
+        Assert.assertEquals(cache.order(URL, FIELD, candidates)[0], "//input[@id='old']");
+
+        // The page changed: the old locator now fails every time before the new one wins
+        for (int i = 0; i < 5; i++) {
+            cache.recordSuccess(URL, FIELD, candidates, 1, 20);
+        }
+        Assert.assertEquals(cache.order(URL, FIELD, candidates)[0], "//input[@id='new']");
+    }
+
+    @Test(description = "Catch-all fallbacks stay last however often they win")
+    public void testGenericFallbacksArePinnedLast() {
+        for (int i = 0; i < 10; i++) {
+            String[] ordered = cache.order(URL, FIELD, CANDIDATES);
+            cache.recordSuccess(URL, FIELD, ordered, indexOf(ordered, "//input"), 5);
+        }
+        Assert.assertEquals(cache.order(URL, FIELD, CANDIDATES), CANDIDATES);
+
+        // Specific locators are still reordered ahead of the pinned fallbacks
+        String[] ordered = cache.order(URL, FIELD, CANDIDATES);
+        cache.recordSuccess(URL, FIELD, ordered, indexOf(ordered, "//input[@name='email']"), 20);
+        Assert.assertEquals(cache.order(URL, FIELD, CANDIDATES), new String[] {
+            "//input[@name='email']",
+            "//input[@type='email']",
+            "//input[contains(@placeholder, 'email')]",
+            "//input",
+            "//form//input"
+        });
+    }
+
+    @Test(description = "Only tag and role selectors count as catch-all fallbacks")
+    public void testGenericLocatorDetection() {
+        Assert.assertTrue(LocatorStrategyCache.isGeneric("//input"));
+        Assert.assertTrue(LocatorStrategyCache.isGeneric("//button"));
+        Assert.assertTrue(LocatorStrategyCache.isGeneric("//div[contains(@role, 'button')]"));
+        Assert.assertTrue(LocatorStrategyCache.isGeneric("//button | //input[@type='submit']"));
+        Assert.assertFalse(LocatorStrategyCache.isGeneric("//input[@type='email']"));
+        Assert.assertFalse(LocatorStrategyCache.isGeneric("//button[contains(text(), 'Continue')]"));
+        Assert.assertFalse(LocatorStrategyCache.isGeneric("//form//input"));
+    }
+
+    @Test(description = "The learned order survives a save and reload")
+    public void testOrderIsPersisted() {
+        String[] ordered = cache.order(URL, FIELD, CANDIDATES);
+        cache.recordSuccess(URL, FIELD, ordered, indexOf(ordered, "//input[@name='email']"), 20);
+        cache.save();
+        Assert.assertTrue(Files.exists(file.toPath()));
+
+        LocatorStrategyCache reloaded = new LocatorStrategyCache(file, 14);
+        Assert.assertEquals(reloaded.order(URL, FIELD, CANDIDATES)[0], "//input[@name='email']");
+    }
+
+    private static int indexOf(String[] candidates, String locator) {
+        for (int i = 0; i < candidates.length; i++) {
+            if (candidates[i].equals(locator)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(locator);
+    }
+}
@@ -0,0 +1,93 @@
+package com.selenium.notion.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.crypto.AEADBadTagException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the {@link SessionVault} encryption; no browser is involved. The tests change
+ * session.vault.passphrase, so they run one at a time even in parallel suites.
+ */
+@Test(singleThreaded = true)
+public class SessionVaultTest {
+
+    private static final byte[] SNAPSHOT = "{\"cookies\":[],\"capturedAt\":1}".getBytes(StandardCharsets.UTF_8);
+
+    private Path root;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        root = Files.createTempDirectory("session-vault-");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteDirectory() throws IOException {
+        ConfigReader.setProperty("session.vault.passphrase", null);
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test(description = "Data encrypted with the generated key file decrypts again")
+    public void testRoundTripWithKeyFile() throws Exception {
+        SessionVault vault = newVault("a");
+
+        byte[] sealed = vault.encrypt(SNAPSHOT);
+
+        Assert.assertTrue(Files.exists(root.resolve("a").resolve("vault.key")));
+        Assert.assertFalse(new String(sealed, StandardCharsets.ISO_8859_1).contains("capturedAt"));
+        Assert.assertEquals(vault.decrypt(sealed), SNAPSHOT);
+        // A new vault on the same directory reads the same key file
+        Assert.assertEquals(newVault("a").decrypt(sealed), SNAPSHOT);
+    }
+
+    @Test(description = "A file written with another key file is rejected",
+        expectedExceptions = AEADBadTagException.class)
+    public void testOtherKeyFileIsRejected() throws Exception {
+        byte[] sealed = newVault("a").encrypt(SNAPSHOT);
+
+        newVault("b").decrypt(sealed);
+    }
+
+    @Test(description = "The passphrase replaces the key file and must match to decrypt")
+    public void testPassphrase() throws Exception {
+        ConfigReader.setProperty("session.vault.passphrase", "correct horse");
+        byte[] sealed = newVault("a").encrypt(SNAPSHOT);
+
+        Assert.assertFalse(Files.exists(root.resolve("a").resolve("vault.key")));
+        Assert.assertEquals(newVault("b").decrypt(sealed), SNAPSHOT);
+
+        ConfigReader.setProperty("session.vault.passphrase", "battery staple");
+        Assert.expectThrows(AEADBadTagException.class, () -> newVault("c").decrypt(sealed));
+    }
+
+    @Test(description = "A tampered file is rejected", expectedExceptions = AEADBadTagException.class)
+    public void testTamperedFileIsRejected() throws Exception {
+        SessionVault vault = newVault("a");
+        byte[] sealed = vault.encrypt(SNAPSHOT);
+        sealed[sealed.length - 1] ^= 1;
+
+        vault.decrypt(sealed);
+    }
+
+    @Test(description = "Data that is not a vault file is rejected", expectedExceptions = IOException.class)
+    public void testForeignFileIsRejected() throws Exception {
+        newVault("a").decrypt(new byte[64]);
+    }
+
+    private SessionVault newVault(String directory) {
+        return new SessionVault(root.resolve(directory).toFile(), true, 720, Collections.singletonList("token_v2"),
+            "/workspace", "//nav");
+    }
+}
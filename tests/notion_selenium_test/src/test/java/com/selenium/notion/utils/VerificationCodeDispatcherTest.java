@@ -0,0 +1,193 @@
+package com.selenium.notion.utils;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.mail.Folder;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Store;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.util.Date;
+import java.util.Properties;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tests {@link VerificationCodeDispatcher} against an embedded GreenMail IMAP server. Emails are
+ * added with IMAP APPEND, which keeps their To header (plus-addresses land in the one mailbox,
+ * as with Gmail) and lets a test choose their received date. The server listens on fixed test
+ * ports and the tests change the wait mode, so they run one at a time even in parallel suites.
+ */
+@Test(singleThreaded = true)
+public class VerificationCodeDispatcherTest {
+
+    private static final String ACCOUNT = "tester@localhost";
+    private static final String PASSWORD = "secret";
+    private static final String SUBJECT = "Your Notion login code";
+    private static final String SENDER = "notify@mail.notion.so";
+    private static final long WAIT_SECONDS = 10;
+
+    private GreenMail greenMail;
+    private VerificationCodeDispatcher dispatcher;
+    private int syncCount;
+
+    @BeforeMethod
+    public void startMailServer() {
+        greenMail = new GreenMail(ServerSetupTest.IMAP);
+        greenMail.start();
+        greenMail.setUser(ACCOUNT, ACCOUNT, PASSWORD);
+        ConfigReader.setProperty("email.wait.mode", "poll");
+        ConfigReader.setProperty("email.poll.interval.millis", "200");
+        dispatcher = new VerificationCodeDispatcher(
+            ImapInbox.fromConfig(ACCOUNT, PASSWORD, "localhost", greenMail.getImap().getPort(), false), 5000, 300);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void stopMailServer() {
+        dispatcher.shutdown();
+        greenMail.stop();
+        ConfigReader.setProperty("email.wait.mode", null);
+        ConfigReader.setProperty("email.poll.interval.millis", null);
+    }
+
+    @Test(description = "Concurrent logins with different plus-addresses each get their own code")
+    public void testConcurrentPlusAddressedLogins() throws Exception {
+        long requestedAt = System.currentTimeMillis();
+        Future<String> first = dispatcher.expectCode(tagged("first"), requestedAt);
+        Future<String> second = dispatcher.expectCode(tagged("second"), requestedAt);
+
+        deliver(tagged("second"), "222222", System.currentTimeMillis());
+        deliver(tagged("first"), "111111", System.currentTimeMillis());
+
+        Assert.assertEquals(first.get(WAIT_SECONDS, TimeUnit.SECONDS), "111111");
+        Assert.assertEquals(second.get(WAIT_SECONDS, TimeUnit.SECONDS), "222222");
+    }
+
+    @Test(description = "A code for the exact address wins over a login waiting on the base address")
+    public void testExactAddressWinsOverBaseAddress() throws Exception {
+        long requestedAt = System.currentTimeMillis();
+        Future<String> base = dispatcher.expectCode(ACCOUNT, requestedAt);
+        Future<String> tagged = dispatcher.expectCode(tagged("exact"), requestedAt);
+
+        deliver(tagged("exact"), "313131", System.currentTimeMillis());
+        Assert.assertEquals(tagged.get(WAIT_SECONDS, TimeUnit.SECONDS), "313131");
+        Assert.assertFalse(base.isDone());
+
+        deliver(ACCOUNT, "424242", System.currentTimeMillis());
+        Assert.assertEquals(base.get(WAIT_SECONDS, TimeUnit.SECONDS), "424242");
+    }
+
+    @Test(description = "An email received before the code was requested is not handed out")
+    public void testEmailBeforeRequestIsIgnored() throws Exception {
+        String login = tagged("late");
+        deliver(login, "333333", System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(10));
+
+        Future<String> code = dispatcher.expectCode(login, System.currentTimeMillis());
+        Assert.expectThrows(TimeoutException.class, () -> code.get(2, TimeUnit.SECONDS));
+        // Older than the request and the unclaimed retention, so its body was never read
+        Assert.assertTrue(dispatcher.getStatistics().contains("skippedOld=1"), dispatcher.getStatistics());
+
+        deliver(login, "444444", System.currentTimeMillis());
+        Assert.assertEquals(code.get(WAIT_SECONDS, TimeUnit.SECONDS), "444444");
+    }
+
+    @Test(description = "A code that arrives before anyone asks for it is kept for the login")
+    public void testCodeBeforeExpectCodeIsKept() throws Exception {
+        long requestedAt = System.currentTimeMillis();
+        awaitScanned();
+        deliver(tagged("early"), "555555", System.currentTimeMillis());
+        awaitScanned();
+
+        Future<String> code = dispatcher.expectCode(tagged("early"), requestedAt);
+        Assert.assertTrue(code.isDone(), "The kept code should be handed out at once");
+        Assert.assertEquals(code.get(), "555555");
+    }
+
+    @Test(description = "Of several kept codes for one login the newest is handed out and the rest dropped")
+    public void testNewestKeptCodeWins() throws Exception {
+        long requestedAt = System.currentTimeMillis();
+        awaitScanned();
+        deliver(tagged("resend"), "616161", System.currentTimeMillis());
+        awaitScanned();
+        deliver(tagged("resend"), "626262", System.currentTimeMillis());
+        awaitScanned();
+
+        Assert.assertEquals(dispatcher.expectCode(tagged("resend"), requestedAt).get(), "626262");
+        Future<String> again = dispatcher.expectCode(tagged("resend"), requestedAt);
+        Assert.assertFalse(again.isDone(), "The replaced code should have been dropped");
+        again.cancel(false);
+    }
+
+    @Test(description = "When one scan finds several codes for a login, the newest one is handed out")
+    public void testNewestCodeInOneBatchWins() throws Exception {
+        long requestedAt = System.currentTimeMillis();
+        // Both emails are in the mailbox before the watcher's first scan
+        deliver(tagged("batch"), "717171", System.currentTimeMillis());
+        deliver(tagged("batch"), "727272", System.currentTimeMillis());
+
+        Future<String> code = dispatcher.expectCode(tagged("batch"), requestedAt);
+        Assert.assertEquals(code.get(WAIT_SECONDS, TimeUnit.SECONDS), "727272");
+    }
+
+    @Test(description = "A cancelled login does not take a code; it is kept for the next one")
+    public void testCancelledWaiterLeavesCodeUnclaimed() throws Exception {
+        long requestedAt = System.currentTimeMillis();
+        Future<String> abandoned = dispatcher.expectCode(tagged("retry"), requestedAt);
+        abandoned.cancel(false);
+
+        deliver(tagged("retry"), "818181", System.currentTimeMillis());
+        awaitScanned();
+
+        Future<String> retry = dispatcher.expectCode(tagged("retry"), requestedAt);
+        Assert.assertTrue(retry.isDone(), "The code should have been kept for the retry");
+        Assert.assertEquals(retry.get(), "818181");
+    }
+
+    /**
+     * Waits until the watcher has dispatched every email added so far. A scan hands out the
+     * newest code of its batch first, so a marker code only shows that its batch was fetched;
+     * a second marker, added after the first was handed out, can only arrive in a later scan.
+     */
+    private void awaitScanned() throws Exception {
+        for (int round = 0; round < 2; round++) {
+            String sync = tagged("sync" + (++syncCount));
+            String marker = String.format("9%05d", syncCount);
+            Future<String> code = dispatcher.expectCode(sync, System.currentTimeMillis());
+            deliver(sync, marker, System.currentTimeMillis());
+            Assert.assertEquals(code.get(WAIT_SECONDS, TimeUnit.SECONDS), marker);
+        }
+    }
+
+    private static String tagged(String tag) {
+        return VerificationCodeDispatcher.plusAddress(ACCOUNT, tag);
+    }
+
+    private void deliver(String to, String code, long receivedAtMillis) throws MessagingException {
+        Session session = Session.getInstance(new Properties());
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(SENDER));
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(to));
+        message.setSubject(SUBJECT);
+        message.setText("Your login code: " + code);
+        // APPEND stores the sent date as the received date
+        message.setSentDate(new Date(receivedAtMillis));
+        message.saveChanges();
+
+        Store store = session.getStore("imap");
+        store.connect("localhost", greenMail.getImap().getPort(), ACCOUNT, PASSWORD);
+        try {
+            Folder inbox = store.getFolder("INBOX");
+            inbox.appendMessages(new Message[] {message});
+        } finally {
+            store.close();
+        }
+    }
+}
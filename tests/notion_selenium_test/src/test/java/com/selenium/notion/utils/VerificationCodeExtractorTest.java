@@ -0,0 +1,102 @@
+package com.selenium.notion.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.mail.Session;
+import javax.mail.internet.MimeBodyPart;
+import javax.mail.internet.MimeMessage;
+import javax.mail.internet.MimeMultipart;
+
+/**
+ * Unit tests for {@link VerificationCodeExtractor}; no mailbox is involved.
+ */
+public class VerificationCodeExtractorTest {
+
+    // The extractor reads bodies in chunks of this many characters
+    private static final int CHUNK_SIZE = 4096;
+
+    private final VerificationCodeExtractor extractor = new VerificationCodeExtractor(262144);
+
+    @Test(description = "An explicit 'code:' label gives the most confident match")
+    public void testLabelledCode() {
+        VerificationCodeExtractor.VerificationCode match = extractor.extract("Your Notion login code: 482913");
+
+        Assert.assertEquals(match.getCode(), "482913");
+        Assert.assertEquals(match.getConfidence(), 0.95);
+    }
+
+    @Test(description = "A code split across a chunk boundary is read whole")
+    public void testCodeStraddlingChunkBoundary() {
+        // The first chunk ends after "code: 1234", which on its own would match as a 4-digit code
+        String text = filler(CHUNK_SIZE - "code: 1234".length()) + "code: 123456 thanks";
+
+        VerificationCodeExtractor.VerificationCode match = extractor.extract(text);
+
+        Assert.assertEquals(match.getCode(), "123456");
+        Assert.assertEquals(match.getConfidence(), 0.95);
+    }
+
+    @Test(description = "A more specific match later in the body replaces a weak early one")
+    public void testLaterLabelledCodeBeatsEarlyFourDigitNumber() {
+        // The year is found in the first chunk; the labelled code only turns up in the second
+        String text = "Copyright 2024 Notion Labs. " + filler(2 * CHUNK_SIZE) + " Your login code: 731604";
+
+        VerificationCodeExtractor.VerificationCode match = extractor.extract(text);
+
+        Assert.assertEquals(match.getCode(), "731604");
+        Assert.assertEquals(match.getConfidence(), 0.95);
+    }
+
+    @Test(description = "Only email.body.max.chars characters are scanned")
+    public void testScanStopsAtCharacterBudget() {
+        VerificationCodeExtractor small = new VerificationCodeExtractor(CHUNK_SIZE);
+
+        Assert.assertNull(small.extract(filler(2 * CHUNK_SIZE) + " code: 482913"));
+    }
+
+    @Test(description = "Text without anything code-like yields no match")
+    public void testNoCode() {
+        Assert.assertNull(extractor.extract("Welcome to Notion! Click the link to sign in."));
+    }
+
+    @Test(description = "An HTML-only body is read as text, ignoring styles and tags")
+    public void testHtmlOnlyBody() throws Exception {
+        MimeMessage message = new MimeMessage((Session) null);
+        message.setText("<html><head><style>.code { color: #123456; font-size: 2400px; }</style></head>" +
+            "<body><p>Your login code</p><p class=\"code\">482913</p></body></html>", "utf-8", "html");
+        message.saveChanges();
+
+        VerificationCodeExtractor.VerificationCode match = extractor.extract(message);
+
+        Assert.assertEquals(match.getCode(), "482913");
+        Assert.assertEquals(match.getConfidence(), 0.7);
+    }
+
+    @Test(description = "The HTML alternative is used when the plain text part holds no code")
+    public void testHtmlAlternativeAfterPlainText() throws Exception {
+        MimeBodyPart plain = new MimeBodyPart();
+        plain.setText("Open this email in an HTML viewer to see your code.");
+        MimeBodyPart html = new MimeBodyPart();
+        html.setText("<p>Your login <b>code:</b> 553201</p>", "utf-8", "html");
+        MimeMultipart alternative = new MimeMultipart("alternative", plain, html);
+
+        MimeMessage message = new MimeMessage((Session) null);
+        message.setContent(alternative);
+        message.saveChanges();
+
+        VerificationCodeExtractor.VerificationCode match = extractor.extract(message);
+
+        Assert.assertEquals(match.getCode(), "553201");
+        Assert.assertEquals(match.getConfidence(), 0.95);
+    }
+
+    private static String filler(int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append("lorem ipsum ");
+        }
+        text.setLength(length);
+        return text.toString();
+    }
+}